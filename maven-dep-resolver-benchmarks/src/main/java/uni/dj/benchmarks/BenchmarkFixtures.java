@@ -0,0 +1,215 @@
+package uni.dj.benchmarks;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import uni.dj.MavenLogger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/*
+    Generates the inputs for the benchmarks: Aether dependency trees, dependency JARs
+    and compiled project classes. All generators are deterministic for a given seed.
+ */
+final class BenchmarkFixtures {
+
+    /*
+        Logger that drops every message, so logging does not distort the measurements.
+     */
+    static final MavenLogger SILENT = new MavenLogger() {
+        @Override
+        public void info(String msg) {
+        }
+
+        @Override
+        public void debug(String msg) {
+        }
+
+        @Override
+        public void warn(String msg) {
+        }
+
+        @Override
+        public void error(String msg) {
+        }
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /*
+        Builds a dependency tree with the given number of nodes (root included), breadth first,
+        every node has at most fanOut children. A share of conflictRate nodes are older versions
+        of an already existing artifact and carry the ConflictResolver winner like a verbose collection.
+        @returns Root node of the tree.
+     */
+    static DependencyNode createTree(int nodeCount, int fanOut, double conflictRate, long seed) {
+        Random random = new Random(seed);
+        List<DependencyNode> created = new ArrayList<>(nodeCount);
+
+        DependencyNode root = new DefaultDependencyNode(
+                new Dependency(new DefaultArtifact("bench.root:root-project:jar:1.0"), ""));
+        created.add(root);
+
+        Deque<DependencyNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (created.size() < nodeCount && !queue.isEmpty()) {
+            DependencyNode parent = queue.poll();
+            List<DependencyNode> children = new ArrayList<>();
+            for (int i = 0; i < fanOut && created.size() < nodeCount; i++) {
+                DependencyNode child;
+                if (created.size() > 1 && random.nextDouble() < conflictRate) {
+                    // Aeltere Version eines bestehenden Artefakts, verliert gegen das bestehende
+                    DependencyNode winner = created.get(1 + random.nextInt(created.size() - 1));
+                    DefaultArtifact artifact = new DefaultArtifact(winner.getArtifact().getGroupId(),
+                            winner.getArtifact().getArtifactId(), "jar", "0.9");
+                    child = new DefaultDependencyNode(new Dependency(artifact, "compile"));
+                    child.setData(ConflictResolver.NODE_DATA_WINNER, winner);
+                } else {
+                    int index = created.size();
+                    DefaultArtifact artifact = new DefaultArtifact(
+                            "bench.group" + (index % 50), "artifact" + index, "jar", "1.0");
+                    child = new DefaultDependencyNode(new Dependency(artifact, "compile"));
+                    queue.add(child);
+                }
+                children.add(child);
+                created.add(child);
+            }
+            parent.setChildren(children);
+        }
+        return root;
+    }
+
+    /*
+        @returns The internal class names of a generated dependency JAR.
+     */
+    static List<String> jarClassNames(int jarIndex, int classCount) {
+        List<String> names = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            names.add("bench/lib" + jarIndex + "/pkg" + (i % 10) + "/Class" + i);
+        }
+        return names;
+    }
+
+    /*
+        Writes a JAR that contains an empty class for each given internal class name.
+        @returns The written JAR file.
+     */
+    static File createJar(File file, List<String> classNames) throws IOException {
+        return createJar(file, classNames, null);
+    }
+
+    /*
+        Writes a JAR with a class for each given internal class name, the class at index i calls
+        the classes in references.get(i). references may be null for classes without references.
+        @returns The written JAR file.
+     */
+    static File createJar(File file, List<String> classNames, List<List<String>> references) throws IOException {
+        file.getParentFile().mkdirs();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            out.write("Manifest-Version: 1.0\n".getBytes());
+            out.closeEntry();
+            for (int i = 0; i < classNames.size(); i++) {
+                String className = classNames.get(i);
+                out.putNextEntry(new ZipEntry(className + ".class"));
+                out.write(classBytes(className, references != null ? references.get(i) : List.of()));
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    /*
+        Writes classCount project classes below classesDir. Each class calls a static method on
+        referencesPerClass of the given library classes, chosen at random.
+     */
+    static void createProjectClasses(File classesDir, int classCount, List<String> libraryClasses,
+                                     int referencesPerClass, long seed) throws IOException {
+        Random random = new Random(seed);
+        for (int i = 0; i < classCount; i++) {
+            String className = "bench/project/pkg" + (i % 20) + "/ProjectClass" + i;
+            List<String> references = new ArrayList<>();
+            for (int r = 0; r < referencesPerClass && !libraryClasses.isEmpty(); r++) {
+                references.add(libraryClasses.get(random.nextInt(libraryClasses.size())));
+            }
+            File classFile = new File(classesDir, className + ".class");
+            classFile.getParentFile().mkdirs();
+            Files.write(classFile.toPath(), classBytes(className, references));
+        }
+    }
+
+    /*
+        Generates the bytecode of a class with one method that invokes a static method on every referenced class.
+        @returns Class file bytes.
+     */
+    static byte[] classBytes(String className, List<String> references) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+        method.visitCode();
+        for (String reference : references) {
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, reference, "touch", "()V", false);
+        }
+        method.visitInsn(Opcodes.RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /*
+        Creates an empty JAR file at the Maven repository layout path of the artifact.
+        @returns The created file.
+     */
+    static File installEmptyJar(File localRepository, Artifact artifact) throws IOException {
+        File directory = new File(localRepository, artifact.getGroupId().replace('.', File.separatorChar)
+                + File.separator + artifact.getArtifactId() + File.separator + artifact.getVersion());
+        directory.mkdirs();
+        File jar = new File(directory, artifact.getArtifactId() + "-" + artifact.getVersion() + ".jar");
+        jar.createNewFile();
+        return jar;
+    }
+
+    /*
+        @returns A new empty temporary directory.
+     */
+    static File createTempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    /*
+        Deletes a directory with all its content.
+     */
+    static void deleteRecursively(File directory) throws IOException {
+        if (directory == null || !directory.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package uni.dj.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uni.dj.JarClassIndex;
+import uni.dj.UnusedDependencyAnalyzer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures listing dependency JARs (the former extractClassNamesFromJar, now JarClassIndex)
+    and UnusedDependencyAnalyzer.isDependencyUsed, cold (new index) and warm (shared index).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JarIndexBenchmark {
+
+    @Param({"10", "100"})
+    public int jars;
+
+    @Param({"100", "1000"})
+    public int classesPerJar;
+
+    private File workDir;
+    private final List<File> jarFiles = new ArrayList<>();
+    private UnusedDependencyAnalyzer warmAnalyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = BenchmarkFixtures.createTempDir("bench-jars");
+        List<String> usedLibraryClasses = new ArrayList<>();
+        for (int j = 0; j < jars; j++) {
+            List<String> classNames = BenchmarkFixtures.jarClassNames(j, classesPerJar);
+            jarFiles.add(BenchmarkFixtures.createJar(new File(workDir, "lib" + j + ".jar"), classNames));
+            // Nur jedes zweite JAR wird benutzt, die anderen muessen komplett durchsucht werden
+            if (j % 2 == 0) {
+                usedLibraryClasses.add(classNames.get(classNames.size() - 1));
+            }
+        }
+
+        File classesDir = new File(workDir, "classes");
+        BenchmarkFixtures.createProjectClasses(classesDir, 50, usedLibraryClasses, 5, 7);
+        warmAnalyzer = new UnusedDependencyAnalyzer(BenchmarkFixtures.SILENT, new JarClassIndex());
+        warmAnalyzer.analyzeProjectUsage(classesDir);
+        for (File jar : jarFiles) {
+            warmAnalyzer.isDependencyUsed(jar);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkFixtures.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public int extractClassNamesCold() throws Exception {
+        JarClassIndex index = new JarClassIndex();
+        int classes = 0;
+        for (File jar : jarFiles) {
+            classes += index.getClassNames(jar).size();
+        }
+        return classes;
+    }
+
+    @Benchmark
+    public int isDependencyUsedWarm() {
+        int used = 0;
+        for (File jar : jarFiles) {
+            if (warmAnalyzer.isDependencyUsed(jar)) {
+                used++;
+            }
+        }
+        return used;
+    }
+}
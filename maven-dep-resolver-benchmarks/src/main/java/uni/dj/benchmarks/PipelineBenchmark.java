@@ -0,0 +1,85 @@
+package uni.dj.benchmarks;
+
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uni.dj.ArtifactPathResolver;
+import uni.dj.DependencyAnalysisPipeline;
+import uni.dj.DependencyAnalysisResult;
+import uni.dj.DependencyService;
+import uni.dj.JarClassIndex;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Runs the complete analysis pipeline of GetDependencyTreeMojo against a SyntheticRepository.
+    Every invocation uses a new JAR index and path cache, like a single Maven build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"3", "4"})
+    public int depth;
+
+    @Param({"5", "10"})
+    public int fanOut;
+
+    @Param({"0.1"})
+    public double conflictRate;
+
+    @Param({"0.2"})
+    public double unusedRatio;
+
+    @Param({"2"})
+    public int threads;
+
+    private File workDir;
+    private SyntheticRepository repository;
+    private MavenProject project;
+    private DependencyService dependencyService;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = BenchmarkFixtures.createTempDir("bench-pipeline");
+        repository = SyntheticRepository.generate(workDir,
+                new SyntheticRepository.Options(depth, fanOut, conflictRate, unusedRatio));
+        project = repository.createProject();
+        dependencyService = repository.createDependencyService();
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        BenchmarkFixtures.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public int analyze() throws Exception {
+        DependencyAnalysisPipeline pipeline = new DependencyAnalysisPipeline(dependencyService,
+                new ArtifactPathResolver(repository.getLocalRepository(), BenchmarkFixtures.SILENT),
+                new JarClassIndex(), executor);
+        DependencyAnalysisResult result = pipeline.analyze(project, BenchmarkFixtures.SILENT);
+        return result.unusedArtifacts().size();
+    }
+}
@@ -0,0 +1,63 @@
+package uni.dj.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uni.dj.UnusedDependencyAnalyzer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures UnusedDependencyAnalyzer.analyzeProjectUsage on generated project class directories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectScanBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int projectClasses;
+
+    @Param({"10", "100"})
+    public int jars;
+
+    private File classesDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<String> libraryClasses = new ArrayList<>();
+        for (int j = 0; j < jars; j++) {
+            libraryClasses.addAll(BenchmarkFixtures.jarClassNames(j, 100));
+        }
+        classesDir = BenchmarkFixtures.createTempDir("bench-classes");
+        BenchmarkFixtures.createProjectClasses(classesDir, projectClasses, libraryClasses, 10, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkFixtures.deleteRecursively(classesDir);
+    }
+
+    @Benchmark
+    public int analyzeProjectUsage() throws Exception {
+        UnusedDependencyAnalyzer analyzer = new UnusedDependencyAnalyzer(BenchmarkFixtures.SILENT);
+        analyzer.analyzeProjectUsage(classesDir);
+        return analyzer.getUsedClassCount();
+    }
+}
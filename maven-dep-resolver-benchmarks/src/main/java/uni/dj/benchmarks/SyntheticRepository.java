@@ -0,0 +1,273 @@
+package uni.dj.benchmarks;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import uni.dj.DependencyService;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+    Synthetic local Maven repository for scale tests without network access.
+    Generates a verbose Aether dependency graph with configurable depth, fan-out and conflict rate,
+    a POM and a JAR for every winning artifact (the classes of a JAR reference the classes of its
+    dependencies) and compiled project classes that use all artifacts except the unused share.
+ */
+public final class SyntheticRepository {
+
+    /*
+        Shape of the generated repository.
+        conflictRate: share of nodes that are a losing older version of an already existing artifact.
+        unusedRatio: share of the winning artifacts the project classes do not reference.
+     */
+    public record Options(int depth, int fanOut, double conflictRate, double unusedRatio,
+                          int classesPerJar, int projectClasses, long seed) {
+
+        public Options(int depth, int fanOut, double conflictRate, double unusedRatio) {
+            this(depth, fanOut, conflictRate, unusedRatio, 20, 200, 42);
+        }
+    }
+
+    private final File localRepository;
+    private final File classesDirectory;
+    private final DependencyNode root;
+    private final List<Artifact> artifacts;
+    private final List<Artifact> unusedArtifacts;
+
+    private SyntheticRepository(File localRepository, File classesDirectory, DependencyNode root,
+                                List<Artifact> artifacts, List<Artifact> unusedArtifacts) {
+        this.localRepository = localRepository;
+        this.classesDirectory = classesDirectory;
+        this.root = root;
+        this.artifacts = artifacts;
+        this.unusedArtifacts = unusedArtifacts;
+    }
+
+    /*
+        Generates the repository below baseDirectory: "repository" is the local repository,
+        "classes" the project's class output directory.
+        @returns The generated repository.
+     */
+    public static SyntheticRepository generate(File baseDirectory, Options options) throws IOException {
+        Random random = new Random(options.seed());
+        File localRepository = new File(baseDirectory, "repository");
+        File classesDirectory = new File(baseDirectory, "classes");
+
+        DependencyNode root = new DefaultDependencyNode(
+                new Dependency(new DefaultArtifact("synthetic.project:project:jar:1.0"), ""));
+        List<DependencyNode> winners = new ArrayList<>();
+
+        // Breitensuche, jede Ebene bekommt fanOut Kinder pro Knoten
+        Deque<DependencyNode> level = new ArrayDeque<>();
+        level.add(root);
+        for (int depth = 1; depth <= options.depth(); depth++) {
+            Deque<DependencyNode> nextLevel = new ArrayDeque<>();
+            for (DependencyNode parent : level) {
+                List<DependencyNode> children = new ArrayList<>();
+                for (int i = 0; i < options.fanOut(); i++) {
+                    if (!winners.isEmpty() && random.nextDouble() < options.conflictRate()) {
+                        DependencyNode winner = winners.get(random.nextInt(winners.size()));
+                        Artifact artifact = winner.getArtifact().setVersion("0.9");
+                        DependencyNode loser = new DefaultDependencyNode(new Dependency(artifact, "compile"));
+                        loser.setData(ConflictResolver.NODE_DATA_WINNER, winner);
+                        children.add(loser);
+                    } else {
+                        int index = winners.size();
+                        Artifact artifact = new DefaultArtifact(
+                                "synthetic.group" + (index % 25), "artifact" + index, "jar", "1.0");
+                        DependencyNode child = new DefaultDependencyNode(new Dependency(artifact, "compile"));
+                        winners.add(child);
+                        children.add(child);
+                        nextLevel.add(child);
+                    }
+                }
+                parent.setChildren(children);
+            }
+            level = nextLevel;
+        }
+
+        Map<Artifact, List<String>> classesByArtifact = new LinkedHashMap<>();
+        for (DependencyNode winner : winners) {
+            classesByArtifact.put(winner.getArtifact(), classNames(winner.getArtifact(), options.classesPerJar()));
+        }
+
+        for (DependencyNode winner : winners) {
+            installArtifact(localRepository, winner, classesByArtifact, options, random);
+        }
+
+        List<Artifact> artifacts = new ArrayList<>(classesByArtifact.keySet());
+        List<Artifact> unused = new ArrayList<>();
+        List<String> usedClasses = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            if (random.nextDouble() < options.unusedRatio()) {
+                unused.add(artifact);
+            } else {
+                usedClasses.add(classesByArtifact.get(artifact).get(0));
+            }
+        }
+
+        // Jede benutzte Klasse wird mindestens einmal referenziert, sonst waere die Unused-Quote ungenau
+        int referencesPerClass = Math.max(1, (usedClasses.size() + options.projectClasses() - 1)
+                / Math.max(1, options.projectClasses()));
+        for (int i = 0; i < options.projectClasses(); i++) {
+            String className = "synthetic/project/pkg" + (i % 20) + "/ProjectClass" + i;
+            List<String> references = new ArrayList<>();
+            for (int r = 0; r < referencesPerClass; r++) {
+                int reference = i * referencesPerClass + r;
+                if (reference < usedClasses.size()) {
+                    references.add(usedClasses.get(reference));
+                }
+            }
+            File classFile = new File(classesDirectory, className + ".class");
+            classFile.getParentFile().mkdirs();
+            Files.write(classFile.toPath(), BenchmarkFixtures.classBytes(className, references));
+        }
+
+        return new SyntheticRepository(localRepository, classesDirectory, root, artifacts, unused);
+    }
+
+    /*
+        @returns The local repository directory.
+     */
+    public File getLocalRepository() {
+        return localRepository;
+    }
+
+    /*
+        @returns The project's class output directory.
+     */
+    public File getClassesDirectory() {
+        return classesDirectory;
+    }
+
+    /*
+        @returns Root of the verbose dependency graph, losing versions carry ConflictResolver.NODE_DATA_WINNER.
+     */
+    public DependencyNode getRoot() {
+        return root;
+    }
+
+    /*
+        @returns All winning artifacts, each has a POM and a JAR in the local repository.
+     */
+    public List<Artifact> getArtifacts() {
+        return artifacts;
+    }
+
+    /*
+        @returns The artifacts the project classes do not reference directly. The analysis reports only
+                 those of them that no used artifact references either.
+     */
+    public List<Artifact> getUnusedArtifacts() {
+        return unusedArtifacts;
+    }
+
+    /*
+        Creates a MavenProject whose class output directory is the generated classes directory.
+        @returns The project of the root node.
+     */
+    public MavenProject createProject() {
+        Model model = new Model();
+        model.setGroupId(root.getArtifact().getGroupId());
+        model.setArtifactId(root.getArtifact().getArtifactId());
+        model.setVersion(root.getArtifact().getVersion());
+        Build build = new Build();
+        build.setDirectory(classesDirectory.getParentFile().getAbsolutePath());
+        build.setOutputDirectory(classesDirectory.getAbsolutePath());
+        model.setBuild(build);
+        return new MavenProject(model);
+    }
+
+    /*
+        Creates a DependencyService whose collection returns the generated graph instead of asking
+        a repository system, so the complete analysis pipeline can run offline.
+        @returns DependencyService backed by the generated graph.
+     */
+    public DependencyService createDependencyService() {
+        RepositorySystem repositorySystem = (RepositorySystem) Proxy.newProxyInstance(
+                RepositorySystem.class.getClassLoader(), new Class<?>[]{RepositorySystem.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("collectDependencies")) {
+                        return new CollectResult((CollectRequest) args[1]).setRoot(root);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new DependencyService(repositorySystem, null);
+    }
+
+    /*
+        Writes the POM and the JAR of an artifact. Every class calls the first class of some dependencies.
+     */
+    private static void installArtifact(File localRepository, DependencyNode node,
+                                        Map<Artifact, List<String>> classesByArtifact,
+                                        Options options, Random random) throws IOException {
+        Artifact artifact = node.getArtifact();
+        File directory = new File(localRepository, artifact.getGroupId().replace('.', File.separatorChar)
+                + File.separator + artifact.getArtifactId() + File.separator + artifact.getVersion());
+        directory.mkdirs();
+        String baseName = artifact.getArtifactId() + "-" + artifact.getVersion();
+
+        StringBuilder pom = new StringBuilder()
+                .append("<project>\n  <modelVersion>4.0.0</modelVersion>\n")
+                .append("  <groupId>").append(artifact.getGroupId()).append("</groupId>\n")
+                .append("  <artifactId>").append(artifact.getArtifactId()).append("</artifactId>\n")
+                .append("  <version>").append(artifact.getVersion()).append("</version>\n")
+                .append("  <dependencies>\n");
+        List<String> dependencyClasses = new ArrayList<>();
+        for (DependencyNode child : node.getChildren()) {
+            Artifact dependency = child.getArtifact();
+            pom.append("    <dependency><groupId>").append(dependency.getGroupId())
+                    .append("</groupId><artifactId>").append(dependency.getArtifactId())
+                    .append("</artifactId><version>").append(dependency.getVersion())
+                    .append("</version></dependency>\n");
+            DependencyNode winner = (DependencyNode) child.getData().get(ConflictResolver.NODE_DATA_WINNER);
+            Artifact target = winner != null ? winner.getArtifact() : dependency;
+            dependencyClasses.add(classesByArtifact.get(target).get(0));
+        }
+        pom.append("  </dependencies>\n</project>\n");
+        Files.writeString(new File(directory, baseName + ".pom").toPath(), pom, StandardCharsets.UTF_8);
+
+        List<String> classNames = classesByArtifact.get(artifact);
+        List<List<String>> references = new ArrayList<>(classNames.size());
+        for (int i = 0; i < classNames.size(); i++) {
+            List<String> classReferences = new ArrayList<>();
+            if (!dependencyClasses.isEmpty()) {
+                classReferences.add(dependencyClasses.get(random.nextInt(dependencyClasses.size())));
+            }
+            references.add(classReferences);
+        }
+        BenchmarkFixtures.createJar(new File(directory, baseName + ".jar"), classNames, references);
+    }
+
+    /*
+        @returns The internal class names of the JAR of an artifact.
+     */
+    private static List<String> classNames(Artifact artifact, int classCount) {
+        String packageName = artifact.getGroupId().replace('.', '/') + "/" + artifact.getArtifactId();
+        List<String> names = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            names.add(packageName + "/Class" + i);
+        }
+        return names;
+    }
+}
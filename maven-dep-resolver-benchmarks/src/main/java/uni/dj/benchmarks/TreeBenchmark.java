@@ -0,0 +1,118 @@
+package uni.dj.benchmarks;
+
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uni.dj.ArtifactPathResolver;
+import uni.dj.DependencyGraphVisualizer;
+import uni.dj.DependencyTreeJsonWriter;
+import uni.dj.DependencyTreeNode;
+import uni.dj.OmittedDependencyFinder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Measures the stages that work on the whole dependency tree: path resolution, conversion into
+    DependencyTreeNodes (OmittedDependencyFinder), JSON writing and DOT export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int nodes;
+
+    @Param({"8"})
+    public int fanOut;
+
+    @Param({"0.1"})
+    public double conflictRate;
+
+    private File workDir;
+    private File localRepository;
+    private DependencyNode root;
+    private List<Dependency> dependencies;
+    private List<DependencyTreeNode> treeNodes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = BenchmarkFixtures.createTempDir("bench-tree");
+        localRepository = new File(workDir, "repository");
+        root = BenchmarkFixtures.createTree(nodes, fanOut, conflictRate, 42);
+
+        dependencies = new ArrayList<>();
+        collectDependencies(root, dependencies);
+
+        // Nur die Gewinner liegen als JAR im lokalen Repository, wie nach einem echten Build
+        for (Dependency dependency : dependencies) {
+            if (!"0.9".equals(dependency.getArtifact().getVersion())) {
+                BenchmarkFixtures.installEmptyJar(localRepository, dependency.getArtifact());
+            }
+        }
+
+        treeNodes = new OmittedDependencyFinder(root, Set.of(), BenchmarkFixtures.SILENT, newPathResolver())
+                .getAllNodes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkFixtures.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public int resolveDependencyFiles() {
+        // Neuer Resolver pro Aufruf, sonst wird nur der Pfad-Cache gemessen
+        return newPathResolver().resolveDependencyFiles(dependencies).size();
+    }
+
+    @Benchmark
+    public int buildTreeNodes() {
+        return new OmittedDependencyFinder(root, Set.of(), BenchmarkFixtures.SILENT, newPathResolver())
+                .getAllNodes().size();
+    }
+
+    @Benchmark
+    public int writeJson() throws IOException {
+        StringWriter writer = new StringWriter();
+        new DependencyTreeJsonWriter().write(treeNodes, writer);
+        return writer.getBuffer().length();
+    }
+
+    @Benchmark
+    public long exportDot() throws IOException {
+        return new DependencyGraphVisualizer(workDir).exportDot(treeNodes).length();
+    }
+
+    private ArtifactPathResolver newPathResolver() {
+        return new ArtifactPathResolver(localRepository, BenchmarkFixtures.SILENT);
+    }
+
+    private static void collectDependencies(DependencyNode node, List<Dependency> dependencies) {
+        for (DependencyNode child : node.getChildren()) {
+            dependencies.add(child.getDependency());
+            collectDependencies(child, dependencies);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package uni.dj;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+    Aggregator Mojo that analyzes all modules of the reactor in one run.
+    The modules are analyzed concurrently and share one JAR class index and one path cache,
+    so every dependency JAR is listed only once for the whole reactor.
+    Writes a dependency-tree.json per module and a reactor-level report at the root.
+ */
+@Mojo(name = "aggregate-dependencies", aggregator = true, threadSafe = true)
+public class AggregateDependencyTreeMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${settings}", required = true, readonly = true)
+    Settings settings;
+    @Component
+    private RepositorySystem repoSystem;
+
+    @Parameter(defaultValue = "${repositorySystemSession}", readonly = true)
+    private RepositorySystemSession repoSession;
+
+    @Parameter(defaultValue = "${reactorProjects}", required = true, readonly = true)
+    private List<MavenProject> reactorProjects;
+
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    private File outputDirectory;
+
+    /*
+        Number of modules analyzed at the same time, 0 means one per available processor.
+     */
+    @Parameter(property = "dep-resolver.threads", defaultValue = "0")
+    private int threads;
+
+    /*
+        Emits a JFR event for every analysis stage, visible when a JFR recording is active.
+     */
+    @Parameter(property = "dep-resolver.jfr", defaultValue = "false")
+    private boolean jfrEvents;
+
+    /*
+        Main execution point for the Mojo.
+        Analyzes every reactor module and writes the per-module and reactor-level reports.
+     */
+    @Override
+    public void execute() throws MojoExecutionException {
+        MavenLogger logger = new MojoMavenLogger(getLog());
+
+        File m2Repo;
+        if (settings.getLocalRepository() != null) {
+            m2Repo = new File(settings.getLocalRepository());
+        } else {
+            throw new IllegalStateException("Local repository path is not set in Maven settings.");
+        }
+
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession(repoSession);
+        session.setLocalRepositoryManager(repoSession.getLocalRepositoryManager());
+        session.setConfigProperty(ConflictResolver.CONFIG_PROP_VERBOSE, true);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        poolSize = Math.max(1, poolSize);
+        logger.info("Analyzing " + reactorProjects.size() + " modules with " + poolSize + " threads");
+
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            // Ein Index und ein Pfad-Cache fuer alle Module
+            JarClassIndex jarClassIndex = JarClassIndex.forSession(repoSession);
+            ArtifactPathResolver pathResolver = ArtifactPathResolver.forSession(m2Repo, logger, repoSession);
+            DependencyAnalysisPipeline pipeline = new DependencyAnalysisPipeline(
+                    new DependencyService(repoSystem, session), pathResolver, jarClassIndex, executor);
+
+            // Alle Stages aller Module teilen sich einen Pool, keine Stage blockiert auf eine andere
+            Map<MavenProject, CompletableFuture<DependencyAnalysisResult>> futures = new LinkedHashMap<>();
+            Map<MavenProject, CompletableFuture<File>> reportFutures = new LinkedHashMap<>();
+            for (MavenProject module : reactorProjects) {
+                MavenLogger moduleLogger = new ModuleMavenLogger(module.getArtifactId(), logger);
+                AnalysisMetrics metrics = new AnalysisMetrics(module.getId(), jfrEvents);
+                CompletableFuture<DependencyAnalysisResult> analysis = pipeline.analyzeAsync(module, moduleLogger, metrics);
+                futures.put(module, analysis);
+                reportFutures.put(module, AnalysisStages.then(analysis,
+                        result -> writeModuleReport(result, metrics), executor));
+            }
+
+            List<DependencyAnalysisResult> results = new ArrayList<>();
+            Map<MavenProject, File> moduleReports = new LinkedHashMap<>();
+            for (MavenProject module : reactorProjects) {
+                results.add(awaitResult(module, futures.get(module)));
+                moduleReports.put(module, awaitResult(module, reportFutures.get(module)));
+            }
+
+            if (!outputDirectory.exists()) {
+                outputDirectory.mkdirs();
+            }
+            File reactorReport = new File(outputDirectory, "reactor-dependency-tree.json");
+            new ReactorDependencyReportWriter().write(results, moduleReports, jarClassIndex.size(), reactorReport);
+            logger.info("Indexed " + jarClassIndex.size() + " unique JARs for " + results.size() + " modules");
+
+            // Eine Tabelle fuer alle Module, gleiche Konflikte in mehreren Modulen ergeben eine Zeile
+            VersionConflictReport conflictReport = new VersionConflictReport();
+            for (DependencyAnalysisResult result : results) {
+                conflictReport.add(result.project().getArtifactId(), result.getAllNodes());
+            }
+            File conflictsFile = new File(outputDirectory, "reactor-dependency-conflicts.json");
+            conflictReport.writeJson(conflictsFile);
+            conflictReport.writeCsv(new File(outputDirectory, "reactor-dependency-conflicts.csv"));
+            logger.info("Found " + conflictReport.getConflictCount() + " version conflicts ("
+                    + conflictReport.getDowngradeCount() + " downgrades), written to " + conflictsFile.getAbsolutePath());
+            logger.info("Reactor dependency report written to " + reactorReport.getAbsolutePath());
+
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to analyze reactor dependencies", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+        Waits for a stage of a single module.
+        @returns The result of the stage.
+     */
+    private <T> T awaitResult(MavenProject module, CompletableFuture<T> future) throws MojoExecutionException {
+        try {
+            return AnalysisStages.await(future);
+        } catch (InterruptedException e) {
+            throw new MojoExecutionException("Interrupted while analyzing " + module.getId(), e);
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to analyze dependencies of " + module.getId(), e);
+        }
+    }
+
+    /*
+        Writes the dependency-tree.json and the analysis metrics of a single module into its build directory.
+        @returns The written dependency-tree.json.
+     */
+    private File writeModuleReport(DependencyAnalysisResult result, AnalysisMetrics metrics) throws Exception {
+        File moduleDirectory = new File(result.project().getBuild().getDirectory());
+        if (!moduleDirectory.exists()) {
+            moduleDirectory.mkdirs();
+        }
+
+        File outputFile = new File(moduleDirectory, "dependency-tree.json");
+        try (AnalysisMetrics.StageTimer timer = metrics.start("jsonWrite");
+             FileWriter writer = new FileWriter(outputFile)) {
+            List<DependencyTreeNode> nodes = result.getAllNodes();
+            new DependencyTreeJsonWriter().write(nodes, writer);
+            timer.count("nodes", nodes.size());
+        }
+        metrics.write(new File(moduleDirectory, "dependency-analysis-metrics.json"));
+        return outputFile;
+    }
+}
@@ -0,0 +1,273 @@
+package uni.dj;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.maven.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+    Local query server on top of an IncrementalDependencyAnalysis, used by the IDE plugin.
+    Listens on the loopback interface only. The protocol is line based: every request is one line,
+    every response is one line of JSON of the form {"ok": true, "refreshMillis": ..., "result": ...}
+    or {"ok": false, "error": "..."}.
+
+    Requests:
+        tree                            dependency tree in the format of dependency-tree.json
+        omitted                         dependencies omitted by conflict resolution
+        unused                          potentially unused dependencies
+        path <groupId>:<artifactId>[:<version>]   paths from the project to the artifact
+        status                          size of the in-memory state
+        refresh                         collects the dependencies again
+        shutdown                        stops the daemon
+
+    Every query first picks up changes of pom.xml and the class files, so answers are always current.
+ */
+public class AnalysisDaemon {
+
+    private final IncrementalDependencyAnalysis analysis;
+    private final MavenLogger logger;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private volatile boolean running = true;
+    private volatile ServerSocket serverSocket;
+
+    public AnalysisDaemon(IncrementalDependencyAnalysis analysis, MavenLogger logger) {
+        this.analysis = analysis;
+        this.logger = logger;
+    }
+
+    /*
+        Accepts connections until a client sends "shutdown" or the thread is interrupted.
+        The chosen port is written to portFile, which is deleted again on exit.
+     */
+    public void serve(int port, File portFile) throws IOException {
+        ExecutorService clients = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dep-resolver-daemon-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket = server;
+            portFile.getParentFile().mkdirs();
+            Files.writeString(portFile.toPath(), String.valueOf(server.getLocalPort()), StandardCharsets.UTF_8);
+            logger.info("Dependency analysis daemon listening on 127.0.0.1:" + server.getLocalPort()
+                    + " (port written to " + portFile.getAbsolutePath() + ")");
+
+            while (running && !Thread.currentThread().isInterrupted()) {
+                Socket client;
+                try {
+                    client = server.accept();
+                } catch (SocketException e) {
+                    // Socket wurde von "shutdown" geschlossen
+                    break;
+                }
+                clients.execute(() -> handle(client));
+            }
+        } finally {
+            clients.shutdownNow();
+            Files.deleteIfExists(portFile.toPath());
+            logger.info("Dependency analysis daemon stopped");
+        }
+    }
+
+    /*
+        Stops accepting connections.
+     */
+    public void stop() {
+        running = false;
+        ServerSocket server = serverSocket;
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close daemon socket: " + e.getMessage());
+            }
+        }
+    }
+
+    /*
+        Answers the requests of one client until it closes the connection.
+     */
+    private void handle(Socket client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                out.write(mapper.writeValueAsString(answer(line.trim())));
+                out.write('\n');
+                out.flush();
+                if (!running) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Daemon client disconnected: " + e.getMessage());
+        }
+    }
+
+    /*
+        Executes a single request.
+        @returns The response object.
+     */
+    ObjectNode answer(String request) {
+        ObjectNode response = mapper.createObjectNode();
+        String[] parts = request.split("\\s+", 2);
+        String command = parts[0];
+        String argument = parts.length > 1 ? parts[1] : null;
+
+        try {
+            if (command.equals("shutdown")) {
+                stop();
+                return response.put("ok", true);
+            }
+            if (command.equals("refresh")) {
+                analysis.invalidate();
+            }
+
+            IncrementalDependencyAnalysis.Refresh refresh = analysis.refresh();
+            DependencyAnalysisResult result = refresh.result();
+            response.put("ok", true);
+            response.put("refreshMillis", refresh.millis());
+
+            switch (command) {
+                case "tree", "refresh" -> response.set("result", tree(result));
+                case "omitted" -> response.set("result", omitted(result));
+                case "unused" -> response.set("result", unused(result));
+                case "path" -> response.set("result", paths(result, argument));
+                case "status" -> response.set("result", status(refresh));
+                default -> throw new IllegalArgumentException("Unknown request: " + command);
+            }
+        } catch (Exception e) {
+            response.removeAll();
+            response.put("ok", false);
+            response.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        return response;
+    }
+
+    /*
+        @returns The dependency tree as written to dependency-tree.json.
+     */
+    private ArrayNode tree(DependencyAnalysisResult result) throws IOException {
+        StringWriter json = new StringWriter();
+        new DependencyTreeJsonWriter().write(result.getAllNodes(), json);
+        String content = json.toString().trim();
+        // Der Writer schreibt mehrere Roots ohne umschliessendes Array
+        return (ArrayNode) mapper.readTree(content.startsWith("[") ? content : "[" + content + "]");
+    }
+
+    /*
+        @returns The omitted dependencies with their winners.
+     */
+    private ArrayNode omitted(DependencyAnalysisResult result) {
+        ArrayNode omitted = mapper.createArrayNode();
+        for (DependencyTreeNode node : result.finder().getOmittedDependencies()) {
+            ObjectNode entry = omitted.addObject();
+            entry.put("artifact", coordinates(node.node));
+            entry.put("scope", node.getScope());
+            entry.put("winner", node.getWinner());
+            entry.put("parent", node.getParent() != null ? coordinates(node.getParent().node) : null);
+        }
+        return omitted;
+    }
+
+    /*
+        @returns The potentially unused artifacts.
+     */
+    private ArrayNode unused(DependencyAnalysisResult result) {
+        List<String> unused = new ArrayList<>();
+        for (Artifact artifact : result.unusedArtifacts()) {
+            unused.add(artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion());
+        }
+        Collections.sort(unused);
+
+        ArrayNode array = mapper.createArrayNode();
+        unused.forEach(array::add);
+        return array;
+    }
+
+    /*
+        @returns Every path from the project to a node matching groupId:artifactId[:version].
+     */
+    private ArrayNode paths(DependencyAnalysisResult result, String argument) {
+        if (argument == null) {
+            throw new IllegalArgumentException("Usage: path <groupId>:<artifactId>[:<version>]");
+        }
+        String[] coordinates = argument.trim().split(":");
+        if (coordinates.length < 2) {
+            throw new IllegalArgumentException("Usage: path <groupId>:<artifactId>[:<version>]");
+        }
+
+        ArrayNode paths = mapper.createArrayNode();
+        for (DependencyTreeNode node : result.getAllNodes()) {
+            if (node.node == null || node.node.getArtifact() == null) {
+                continue;
+            }
+            org.eclipse.aether.artifact.Artifact artifact = node.node.getArtifact();
+            if (artifact.getGroupId().equals(coordinates[0]) && artifact.getArtifactId().equals(coordinates[1])
+                    && (coordinates.length < 3 || artifact.getVersion().equals(coordinates[2]))) {
+                List<String> path = new ArrayList<>();
+                for (DependencyTreeNode current = node; current != null; current = current.getParent()) {
+                    path.add(coordinates(current.node));
+                }
+                Collections.reverse(path);
+
+                ArrayNode pathNode = paths.addArray();
+                path.forEach(pathNode::add);
+            }
+        }
+        return paths;
+    }
+
+    /*
+        @returns Size of the in-memory state and what the last refresh had to redo.
+     */
+    private ObjectNode status(IncrementalDependencyAnalysis.Refresh refresh) {
+        ObjectNode status = mapper.createObjectNode();
+        status.put("project", analysis.getProject().getId());
+        status.put("dependencies", refresh.result().dependencies().size());
+        status.put("nodes", refresh.result().getAllNodes().size());
+        status.put("classFiles", analysis.getClassFileCount());
+        status.put("indexedJars", analysis.getIndexedJarCount());
+        status.put("recollected", refresh.recollected());
+        status.put("changedClassFiles", refresh.changedClassFiles());
+        return status;
+    }
+
+    /*
+        @returns groupId:artifactId:version of a node.
+     */
+    private static String coordinates(DependencyNode node) {
+        if (node == null || node.getArtifact() == null) {
+            return "";
+        }
+        return node.getArtifact().getGroupId() + ":" + node.getArtifact().getArtifactId() + ":"
+                + node.getArtifact().getVersion();
+    }
+}
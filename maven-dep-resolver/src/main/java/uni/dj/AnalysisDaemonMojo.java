@@ -0,0 +1,99 @@
+package uni.dj;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.settings.Settings;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+
+import java.io.File;
+
+/*
+    Mojo that keeps the dependency analysis of the project in memory and answers queries
+    of the IDE plugin over a local socket (see AnalysisDaemon for the protocol).
+    Runs until a client sends "shutdown" or Maven is stopped.
+ */
+@Mojo(name = "daemon", threadSafe = true)
+public class AnalysisDaemonMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${settings}", required = true, readonly = true)
+    Settings settings;
+    @Component
+    private RepositorySystem repoSystem;
+
+    @Component
+    private ProjectBuilder projectBuilder;
+
+    @Parameter(defaultValue = "${repositorySystemSession}", readonly = true)
+    private RepositorySystemSession repoSession;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession mavenSession;
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    private File outputDirectory;
+
+    /*
+        Port on 127.0.0.1 to listen on, 0 picks a free port.
+        The port in use is written to target/dependency-daemon.port.
+     */
+    @Parameter(property = "dep-resolver.port", defaultValue = "0")
+    private int port;
+
+    /*
+        Main execution point for the Mojo.
+        Runs the initial analysis and serves queries until shutdown.
+     */
+    @Override
+    public void execute() throws MojoExecutionException {
+        MavenLogger logger = new MojoMavenLogger(getLog());
+
+        File m2Repo;
+        if (settings.getLocalRepository() != null) {
+            m2Repo = new File(settings.getLocalRepository());
+        } else {
+            throw new IllegalStateException("Local repository path is not set in Maven settings.");
+        }
+
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession(repoSession);
+        session.setLocalRepositoryManager(repoSession.getLocalRepositoryManager());
+        session.setConfigProperty(ConflictResolver.CONFIG_PROP_VERBOSE, true);
+
+        IncrementalDependencyAnalysis analysis = new IncrementalDependencyAnalysis(project, this::reloadProject,
+                new DependencyService(repoSystem, session),
+                ArtifactPathResolver.forSession(m2Repo, logger, repoSession),
+                JarClassIndex.forSession(repoSession), logger);
+
+        try {
+            analysis.refresh();
+            new AnalysisDaemon(analysis, logger).serve(port, new File(outputDirectory, "dependency-daemon.port"));
+        } catch (Exception e) {
+            throw new MojoExecutionException("Dependency analysis daemon failed", e);
+        }
+    }
+
+    /*
+        Builds the project again from its pom.xml, without resolving its dependencies.
+        @returns The reloaded project.
+     */
+    private MavenProject reloadProject() throws Exception {
+        ProjectBuildingRequest request = new DefaultProjectBuildingRequest(mavenSession.getProjectBuildingRequest());
+        request.setRepositorySession(repoSession);
+        request.setProcessPlugins(false);
+        request.setResolveDependencies(false);
+        return projectBuilder.build(project.getFile(), request).getProject();
+    }
+}
@@ -0,0 +1,173 @@
+package uni.dj;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/*
+    Fingerprint over all inputs of the dependency analysis.
+    Covers the effective dependency list, the class output directory, the plugin version and the
+    relevant Mojo parameters. If the fingerprint of the previous run matches and all outputs still
+    exist, the analysis can be skipped.
+ */
+public class AnalysisFingerprint {
+
+    private final MessageDigest digest;
+    private boolean cacheable = true;
+
+    public AnalysisFingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /*
+        Adds the coordinates, the declared and the managed dependencies of the project.
+        SNAPSHOT and range versions can change without any change to the POM, so such a
+        project is never considered up to date.
+     */
+    public AnalysisFingerprint addProject(MavenProject project) {
+        add("project", project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion());
+        add("remoteRepositories", String.valueOf(project.getRemoteProjectRepositories()));
+
+        // Reihenfolge beibehalten, sie beeinflusst die Version-Mediation
+        for (Dependency dependency : project.getDependencies()) {
+            addDependency("dependency", dependency);
+        }
+
+        DependencyManagement management = project.getDependencyManagement();
+        if (management != null) {
+            for (Dependency dependency : management.getDependencies()) {
+                addDependency("managed", dependency);
+            }
+        }
+        return this;
+    }
+
+    /*
+        Adds path, size and modification time of every file below the given directory.
+     */
+    public AnalysisFingerprint addDirectory(String name, File directory) throws IOException {
+        if (!directory.isDirectory()) {
+            add(name, "<missing>");
+            return this;
+        }
+
+        Path root = directory.toPath();
+        List<String> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                File f = file.toFile();
+                entries.add(root.relativize(file).toString().replace('\\', '/')
+                        + "|" + f.length() + "|" + f.lastModified());
+            });
+        }
+        Collections.sort(entries);
+
+        add(name, String.valueOf(entries.size()));
+        for (String entry : entries) {
+            add(name, entry);
+        }
+        return this;
+    }
+
+    /*
+        Adds named parameter values, sorted by name.
+     */
+    public AnalysisFingerprint addParameters(Map<String, String> parameters) {
+        for (Map.Entry<String, String> parameter : new TreeMap<>(parameters).entrySet()) {
+            add("parameter." + parameter.getKey(), parameter.getValue());
+        }
+        return this;
+    }
+
+    /*
+        Adds a single named value.
+     */
+    public AnalysisFingerprint add(String name, String value) {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '=');
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+        return this;
+    }
+
+    /*
+        @returns false if an input was added that can change without changing the fingerprint.
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /*
+        Finishes the fingerprint. The instance must not be used afterwards.
+        @returns Hex encoded SHA-256 of all added inputs.
+     */
+    public String toHex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /*
+        Checks if the stored fingerprint equals the given one and all outputs exist.
+        @returns true if the analysis does not need to run again.
+     */
+    public static boolean isUpToDate(File fingerprintFile, String fingerprint, List<File> outputs) {
+        if (!fingerprintFile.isFile()) {
+            return false;
+        }
+        for (File output : outputs) {
+            if (!output.isFile()) {
+                return false;
+            }
+        }
+        try {
+            return Files.readString(fingerprintFile.toPath(), StandardCharsets.UTF_8).trim().equals(fingerprint);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /*
+        Stores the fingerprint for the next run.
+     */
+    public static void store(File fingerprintFile, String fingerprint) throws IOException {
+        Files.writeString(fingerprintFile.toPath(), fingerprint, StandardCharsets.UTF_8);
+    }
+
+    /*
+        Adds a dependency with version, scope, optional flag and exclusions.
+     */
+    private void addDependency(String name, Dependency dependency) {
+        StringBuilder value = new StringBuilder(dependency.getManagementKey())
+                .append(':').append(dependency.getVersion())
+                .append(':').append(dependency.getScope())
+                .append(':').append(dependency.isOptional());
+        for (Exclusion exclusion : dependency.getExclusions()) {
+            value.append(":!").append(exclusion.getGroupId()).append(':').append(exclusion.getArtifactId());
+        }
+        add(name, value.toString());
+
+        String version = dependency.getVersion();
+        if (version != null && (version.endsWith("-SNAPSHOT") || version.startsWith("[") || version.startsWith("("))) {
+            cacheable = false;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package uni.dj;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Collects timing and memory metrics for the stages of the dependency analysis.
+    For every stage wall time, CPU time and allocated bytes of the executing thread are recorded
+    (via ThreadMXBean), together with item counts like classes, JARs or nodes.
+    Stages of one analysis may run on different threads at the same time.
+ */
+public class AnalysisMetrics {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean SUN_THREADS =
+            THREADS instanceof com.sun.management.ThreadMXBean sun ? sun : null;
+
+    private final String module;
+    private final boolean jfrEvents;
+    private final long startNanos = System.nanoTime();
+    private final List<StageMetrics> stages = new ArrayList<>();
+
+    /*
+        Metrics recorded for a single stage.
+     */
+    public record StageMetrics(String name, String thread, long wallNanos, long cpuNanos, long allocatedBytes,
+                               Map<String, Long> counts) {
+    }
+
+    public AnalysisMetrics(String module, boolean jfrEvents) {
+        this.module = module;
+        this.jfrEvents = jfrEvents;
+    }
+
+    /*
+        Starts measuring a stage on the current thread. The stage ends when the returned timer is closed,
+        which must happen on the same thread.
+        @returns Timer for the stage.
+     */
+    public StageTimer start(String stage) {
+        return new StageTimer(stage);
+    }
+
+    /*
+        @returns Snapshot of all stages recorded so far, in order of completion.
+     */
+    public synchronized List<StageMetrics> getStages() {
+        return new ArrayList<>(stages);
+    }
+
+    /*
+        Writes all recorded stages as JSON, e.g. target/dependency-analysis-metrics.json.
+     */
+    public void write(File outputFile) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = mapper.createObjectNode();
+        root.put("module", module);
+        root.put("totalWallNanos", System.nanoTime() - startNanos);
+        root.put("cpuTimeSupported", isCpuTimeSupported());
+        root.put("allocationSupported", isAllocationSupported());
+
+        ArrayNode stageArray = root.putArray("stages");
+        for (StageMetrics stage : getStages()) {
+            ObjectNode node = stageArray.addObject();
+            node.put("name", stage.name());
+            node.put("thread", stage.thread());
+            node.put("wallNanos", stage.wallNanos());
+            node.put("cpuNanos", stage.cpuNanos());
+            node.put("allocatedBytes", stage.allocatedBytes());
+            ObjectNode counts = node.putObject("counts");
+            stage.counts().forEach(counts::put);
+        }
+        mapper.writeValue(outputFile, root);
+    }
+
+    /*
+        Adds a finished stage.
+     */
+    private synchronized void record(StageMetrics stage) {
+        stages.add(stage);
+    }
+
+    /*
+        @returns true if the JVM measures CPU time of the current thread.
+     */
+    private static boolean isCpuTimeSupported() {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    /*
+        @returns true if the JVM measures allocated bytes per thread.
+     */
+    private static boolean isAllocationSupported() {
+        return SUN_THREADS != null && SUN_THREADS.isThreadAllocatedMemorySupported()
+                && SUN_THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    /*
+        @returns CPU time of the current thread, -1 if not supported.
+     */
+    private static long currentCpuNanos() {
+        return isCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /*
+        @returns Bytes allocated by the current thread, -1 if not supported.
+     */
+    private static long currentAllocatedBytes() {
+        return isAllocationSupported() ? SUN_THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /*
+        Measures one stage from creation until close().
+     */
+    public final class StageTimer implements AutoCloseable {
+        private final String stage;
+        private final long wallStart = System.nanoTime();
+        private final long cpuStart = currentCpuNanos();
+        private final long allocatedStart = currentAllocatedBytes();
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private final AnalysisStageEvent event;
+
+        private StageTimer(String stage) {
+            this.stage = stage;
+            if (jfrEvents) {
+                event = new AnalysisStageEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+
+        /*
+            Records an item count for the stage, e.g. number of classes or JARs.
+            @returns this timer
+         */
+        public StageTimer count(String name, long value) {
+            counts.put(name, value);
+            return this;
+        }
+
+        /*
+            Ends the stage, records its metrics and commits the JFR event if enabled.
+         */
+        @Override
+        public void close() {
+            long wall = System.nanoTime() - wallStart;
+            long cpu = cpuStart >= 0 ? currentCpuNanos() - cpuStart : -1;
+            long allocated = allocatedStart >= 0 ? currentAllocatedBytes() - allocatedStart : -1;
+            record(new StageMetrics(stage, Thread.currentThread().getName(), wall, cpu, allocated, counts));
+
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.module = module;
+                    event.stage = stage;
+                    event.cpuNanos = cpu;
+                    event.allocatedBytes = allocated;
+                    event.commit();
+                }
+            }
+        }
+    }
+}
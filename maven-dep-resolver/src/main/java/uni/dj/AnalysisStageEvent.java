@@ -0,0 +1,34 @@
+package uni.dj;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/*
+    JFR event emitted for every stage of the dependency analysis when JFR events are enabled.
+    Visible in recordings as "uni.dj.AnalysisStage".
+ */
+@Name("uni.dj.AnalysisStage")
+@Label("Dependency Analysis Stage")
+@Category({"Maven", "Dependency Analysis"})
+@Description("One stage of the analyze-dependencies pipeline")
+public class AnalysisStageEvent extends Event {
+
+    @Label("Module")
+    String module;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuNanos;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
@@ -0,0 +1,90 @@
+package uni.dj;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/*
+    Helpers to run analysis stages that throw checked exceptions on CompletableFutures.
+    A failing stage completes its future exceptionally, the original exception can be
+    recovered with unwrap().
+ */
+public final class AnalysisStages {
+
+    /*
+        A stage body that receives the result of a previous stage.
+     */
+    @FunctionalInterface
+    public interface Stage<T, R> {
+        R apply(T input) throws Exception;
+    }
+
+    private AnalysisStages() {
+    }
+
+    /*
+        Runs the given stage asynchronously on the executor.
+        @returns Future with the result of the stage.
+     */
+    public static <R> CompletableFuture<R> supply(Callable<R> stage, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> call(stage), executor);
+    }
+
+    /*
+        Runs the given stage on the executor once the input future completed.
+        @returns Future with the result of the stage.
+     */
+    public static <T, R> CompletableFuture<R> then(CompletableFuture<T> input, Stage<T, R> stage, Executor executor) {
+        return input.thenApplyAsync(value -> call(() -> stage.apply(value)), executor);
+    }
+
+    /*
+        Waits for the future and rethrows the original exception of a failed stage.
+        @returns The result of the future.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /*
+        Extracts the original exception from CompletionException/ExecutionException wrappers.
+        @returns The exception thrown by the stage.
+     */
+    public static Exception unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Exception e) {
+            return e;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new Exception(cause);
+    }
+
+    /*
+        Calls the stage and wraps checked exceptions into a CompletionException.
+        @returns The result of the stage.
+     */
+    private static <R> R call(Callable<R> stage) {
+        try {
+            return stage.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -1,16 +1,46 @@
 package uni.dj;
 
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.graph.Dependency;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
     resolves maven aether dependencies to file paths in local repositery (.m2)
+    resolved paths are cached, so a resolver can be shared by several modules
  */
-public record ArtifactPathResolver(File localRepository, MavenLogger logger) {
+public record ArtifactPathResolver(File localRepository, MavenLogger logger, Map<String, String[]> pathCache) {
+
+    private static final String SESSION_KEY = ArtifactPathResolver.class.getName();
+
+    public ArtifactPathResolver(File localRepository, MavenLogger logger) {
+        this(localRepository, logger, new ConcurrentHashMap<>());
+    }
+
+    /*
+        Creates a resolver that uses the path cache stored in the repository session,
+        so all Mojo executions of one Maven build (also with -T) share the cached paths.
+        @returns ArtifactPathResolver backed by the session-wide cache
+     */
+    @SuppressWarnings("unchecked")
+    public static ArtifactPathResolver forSession(File localRepository, MavenLogger logger,
+                                                  RepositorySystemSession session) {
+        // Cache pro lokalem Repository, die Pfade haengen davon ab
+        String key = SESSION_KEY + ":" + localRepository.getAbsolutePath();
+        SessionData data = session.getData();
+        Object cache = data.get(key);
+        while (cache == null) {
+            data.set(key, null, new ConcurrentHashMap<String, String[]>());
+            cache = data.get(key);
+        }
+        return new ArtifactPathResolver(localRepository, logger, (Map<String, String[]>) cache);
+    }
 
     /*
     @returns List<File> filepath, list of filePaths of all dependencies
@@ -50,6 +80,16 @@ public record ArtifactPathResolver(File localRepository, MavenLogger logger) {
     @returns array with .pom/.jar filepaths
      */
     String[] buildDependencyFilePath(Artifact artifact) {
+        String key = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":"
+                + artifact.getVersion() + ":" + artifact.getClassifier();
+        return pathCache.computeIfAbsent(key, k -> buildPaths(artifact));
+    }
+
+    /*
+        Builds the .pom/.jar filepaths without consulting the cache
+        @returns array with .pom/.jar filepaths
+     */
+    private String[] buildPaths(Artifact artifact) {
         String[] retArray = new String[3];
         String groupId = artifact.getGroupId();
         String[] parts = groupId.split("\\.");
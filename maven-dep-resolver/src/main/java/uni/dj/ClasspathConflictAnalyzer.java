@@ -0,0 +1,144 @@
+package uni.dj;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+    Finds duplicate classes and split packages on the effective classpath of a project.
+    Works only on the JAR class index, so JARs already listed for the unused check are not read again.
+    Whether two copies of a class are identical is decided by the CRC-32 from the zip central directory.
+ */
+public class ClasspathConflictAnalyzer {
+
+    // Anzahl der Beispiel-Klassen pro JAR-Paar im Report
+    private static final int MAX_EXAMPLES = 5;
+
+    private final JarClassIndex jarClassIndex;
+    private final MavenLogger logger;
+
+    public ClasspathConflictAnalyzer(JarClassIndex jarClassIndex, MavenLogger logger) {
+        this.jarClassIndex = jarClassIndex;
+        this.logger = logger;
+    }
+
+    /*
+        Shared classes between two JARs, collected while walking the duplicate classes.
+     */
+    private static class PairStats {
+        int duplicateClasses;
+        int differentClasses;
+        final List<String> examples = new ArrayList<>();
+    }
+
+    /*
+        Analyzes the JARs of all nodes that are not omitted by conflict resolution.
+        @returns ClasspathConflicts keyed by JAR path.
+     */
+    public ClasspathConflicts analyze(List<DependencyTreeNode> nodes) {
+        // Effektiver Classpath: jedes JAR nur einmal, verlorene Versionen nicht
+        Map<String, String> artifactsByJar = new LinkedHashMap<>();
+        for (DependencyTreeNode node : nodes) {
+            if (node.isOmmitted || node.parent == null || node.pathToDependencyJar == null
+                    || node.node == null || node.node.getArtifact() == null) {
+                continue;
+            }
+            if (new File(node.pathToDependencyJar).isFile()) {
+                artifactsByJar.putIfAbsent(node.pathToDependencyJar, node.node.getArtifact().getGroupId() + ":"
+                        + node.node.getArtifact().getArtifactId() + ":" + node.node.getArtifact().getVersion());
+            }
+        }
+
+        List<String> jars = new ArrayList<>(artifactsByJar.keySet());
+        List<JarClassIndex.JarContents> contents = new ArrayList<>(jars.size());
+        for (String jar : jars) {
+            try {
+                contents.add(jarClassIndex.getContents(new File(jar)));
+            } catch (Exception e) {
+                logger.warn("Error listing JAR: " + jar + " - " + e.getMessage());
+                contents.add(new JarClassIndex.JarContents(Set.of(), Map.of(), Set.of(), Set.of(), Map.of(), null, Set.of()));
+            }
+        }
+
+        // Erster Besitzer pro Klasse/Paket, weitere Besitzer nur bei Konflikten
+        Map<String, Integer> classOwner = new HashMap<>();
+        Map<String, List<Integer>> duplicateOwners = new TreeMap<>();
+        Map<String, Integer> packageOwner = new HashMap<>();
+        Map<String, Set<Integer>> splitOwners = new HashMap<>();
+        for (int jar = 0; jar < jars.size(); jar++) {
+            Set<String> packages = new HashSet<>();
+            for (String className : contents.get(jar).classNames()) {
+                Integer owner = classOwner.putIfAbsent(className, jar);
+                if (owner != null) {
+                    duplicateOwners.computeIfAbsent(className, k -> new ArrayList<>(List.of(owner))).add(jar);
+                }
+                int separator = className.lastIndexOf('/');
+                if (separator > 0) {
+                    packages.add(className.substring(0, separator));
+                }
+            }
+            for (String packageName : packages) {
+                Integer owner = packageOwner.putIfAbsent(packageName, jar);
+                if (owner != null) {
+                    splitOwners.computeIfAbsent(packageName, k -> new HashSet<>(Set.of(owner))).add(jar);
+                }
+            }
+        }
+
+        Map<Integer, Map<Integer, PairStats>> pairs = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> duplicate : duplicateOwners.entrySet()) {
+            String className = duplicate.getKey();
+            List<Integer> owners = duplicate.getValue();
+            for (int a = 0; a < owners.size(); a++) {
+                for (int b = 0; b < owners.size(); b++) {
+                    if (a == b) {
+                        continue;
+                    }
+                    int jar = owners.get(a);
+                    int other = owners.get(b);
+                    PairStats stats = pairs.computeIfAbsent(jar, k -> new HashMap<>())
+                            .computeIfAbsent(other, k -> new PairStats());
+                    stats.duplicateClasses++;
+                    Long crc = contents.get(jar).classCrcs().get(className);
+                    Long otherCrc = contents.get(other).classCrcs().get(className);
+                    if (crc == null || !crc.equals(otherCrc)) {
+                        stats.differentClasses++;
+                    }
+                    if (stats.examples.size() < MAX_EXAMPLES) {
+                        stats.examples.add(className);
+                    }
+                }
+            }
+        }
+
+        Map<String, List<ClasspathConflicts.JarConflict>> conflictsByJar = new TreeMap<>();
+        pairs.forEach((jar, others) -> {
+            List<ClasspathConflicts.JarConflict> conflicts = new ArrayList<>();
+            new TreeMap<>(others).forEach((other, stats) -> {
+                String otherJar = jars.get(other);
+                conflicts.add(new ClasspathConflicts.JarConflict(artifactsByJar.get(otherJar), otherJar,
+                        stats.duplicateClasses, stats.differentClasses, List.copyOf(stats.examples)));
+            });
+            conflictsByJar.put(jars.get(jar), List.copyOf(conflicts));
+        });
+
+        Map<String, List<String>> splitPackagesByJar = new TreeMap<>();
+        splitOwners.forEach((packageName, owners) -> owners.forEach(jar ->
+                splitPackagesByJar.computeIfAbsent(jars.get(jar), k -> new ArrayList<>()).add(packageName)));
+        splitPackagesByJar.replaceAll((jar, packages) -> {
+            Collections.sort(packages);
+            return List.copyOf(packages);
+        });
+
+        logger.info("Found " + duplicateOwners.size() + " duplicate classes in " + conflictsByJar.size()
+                + " JARs and " + splitOwners.size() + " split packages");
+        return new ClasspathConflicts(conflictsByJar, splitPackagesByJar);
+    }
+}
@@ -0,0 +1,49 @@
+package uni.dj;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+    Classes and packages that are present in more than one JAR of the effective classpath.
+    Keyed by the absolute path of the JAR, like DependencyTreeNode.pathToDependencyJar.
+ */
+public record ClasspathConflicts(Map<String, List<JarConflict>> conflictsByJar,
+                                 Map<String, List<String>> splitPackagesByJar) {
+
+    /*
+        Classes a JAR shares with one other JAR.
+        differentClasses counts the shared classes whose bytes differ (different CRC-32).
+        examples holds some of the shared class names.
+     */
+    public record JarConflict(String artifact, String jar, int duplicateClasses, int differentClasses,
+                              List<String> examples) {
+    }
+
+    /*
+        Copies the conflicts of every JAR to the tree nodes that resolved to this JAR.
+        Omitted nodes are not on the classpath and get no conflicts.
+     */
+    public void applyTo(List<DependencyTreeNode> nodes) {
+        for (DependencyTreeNode node : nodes) {
+            if (node.isOmmitted || node.pathToDependencyJar == null) {
+                continue;
+            }
+            node.duplicateClasses = conflictsByJar.getOrDefault(node.pathToDependencyJar, List.of());
+            node.splitPackages = splitPackagesByJar.getOrDefault(node.pathToDependencyJar, List.of());
+        }
+    }
+
+    /*
+        @returns Number of JARs that share classes with another JAR.
+     */
+    public int getConflictingJarCount() {
+        return conflictsByJar.size();
+    }
+
+    /*
+        @returns Number of JARs that share packages with another JAR.
+     */
+    public int getSplitPackageJarCount() {
+        return splitPackagesByJar.size();
+    }
+}
@@ -0,0 +1,149 @@
+package uni.dj;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/*
+    Runs the dependency analysis for one project as a DAG of stages on an executor:
+
+        collect -> flatten -> resolve paths --+
+        scan project bytecode ----------------+--> check JARs --> build tree
+        scan test bytecode -------------------+                  |
+                                                                 +--> classpath conflicts
+
+    Scanning the project's own classes and its test classes does not depend on the dependency
+    collection, so all three branches run at the same time.
+    The path resolver and the JAR class index may be shared between several projects,
+    both scans resolve the dependency JARs through the same index.
+ */
+public record DependencyAnalysisPipeline(DependencyService dependencyService, ArtifactPathResolver pathResolver,
+                                         JarClassIndex jarClassIndex, Executor executor) {
+
+    /*
+        Number of branches running at the same time: collection, project scan and test scan.
+     */
+    public static final int PARALLEL_BRANCHES = 3;
+
+    /*
+        Collected dependency graph together with the resolved JAR files.
+     */
+    private record CollectedDependencies(DependencyNode rootNode, List<Dependency> dependencies, List<File> files) {
+    }
+
+    /*
+        Classes used by the main and by the test classes of the project.
+     */
+    private record ProjectUsage(UnusedDependencyAnalyzer main, UnusedDependencyAnalyzer test) {
+    }
+
+    /*
+        Analyzes the dependencies of the given project and waits for the result.
+        Must not be called from a thread of the pipeline's executor, use analyzeAsync() there.
+        @returns DependencyAnalysisResult with the dependency graph, the unused artifacts and the tree nodes.
+     */
+    public DependencyAnalysisResult analyze(MavenProject project, MavenLogger logger) throws Exception {
+        return AnalysisStages.await(analyzeAsync(project, logger));
+    }
+
+    /*
+        Starts the analysis of the given project without blocking.
+        @returns Future that completes with the result, or exceptionally with the failure of the first failing stage.
+     */
+    public CompletableFuture<DependencyAnalysisResult> analyzeAsync(MavenProject project, MavenLogger logger) {
+        return analyzeAsync(project, logger, new AnalysisMetrics(project.getArtifactId(), false));
+    }
+
+    /*
+        Starts the analysis of the given project without blocking and records the stages in metrics.
+        @returns Future that completes with the result, or exceptionally with the failure of the first failing stage.
+     */
+    public CompletableFuture<DependencyAnalysisResult> analyzeAsync(MavenProject project, MavenLogger logger,
+                                                                    AnalysisMetrics metrics) {
+        UnusedDependencyService unusedDependencyService = new UnusedDependencyService(project, logger, jarClassIndex);
+
+        CompletableFuture<DependencyNode> collected = AnalysisStages.supply(() -> {
+            try (AnalysisMetrics.StageTimer ignored = metrics.start("collection")) {
+                return dependencyService.collectDependencies(project).getRoot();
+            }
+        }, executor);
+
+        CompletableFuture<CollectedDependencies> resolved = AnalysisStages.then(collected, rootNode -> {
+            List<Dependency> allDependencies;
+            try (AnalysisMetrics.StageTimer timer = metrics.start("flatten")) {
+                allDependencies = dependencyService.getAllDependencies(rootNode);
+                timer.count("dependencies", allDependencies.size());
+            }
+
+            List<File> filepathList;
+            try (AnalysisMetrics.StageTimer timer = metrics.start("pathResolution")) {
+                filepathList = pathResolver.resolveDependencyFiles(allDependencies);
+                timer.count("dependencies", allDependencies.size()).count("jars", filepathList.size());
+            }
+            logger.info("Found " + allDependencies.size() + " project dependencies");
+            return new CollectedDependencies(rootNode, allDependencies, filepathList);
+        }, executor);
+
+        CompletableFuture<UnusedDependencyAnalyzer> scanned = AnalysisStages.supply(() -> {
+            try (AnalysisMetrics.StageTimer timer = metrics.start("projectScan")) {
+                UnusedDependencyAnalyzer analyzer = unusedDependencyService.analyzeProjectUsage();
+                timer.count("classFiles", analyzer.getScannedClassFileCount())
+                        .count("referencedClasses", analyzer.getUsedClassCount());
+                return analyzer;
+            }
+        }, executor);
+
+        CompletableFuture<UnusedDependencyAnalyzer> testScanned = AnalysisStages.supply(() -> {
+            try (AnalysisMetrics.StageTimer timer = metrics.start("testScan")) {
+                UnusedDependencyAnalyzer analyzer = unusedDependencyService.analyzeTestUsage();
+                timer.count("classFiles", analyzer.getScannedClassFileCount())
+                        .count("referencedClasses", analyzer.getUsedClassCount());
+                return analyzer;
+            }
+        }, executor);
+
+        CompletableFuture<ProjectUsage> usage = scanned.thenCombine(testScanned, ProjectUsage::new);
+
+        CompletableFuture<ScopeUsage> unused = resolved.thenCombineAsync(usage, (dependencies, projectUsage) -> {
+            try (AnalysisMetrics.StageTimer timer = metrics.start("jarChecks")) {
+                ScopeUsage scopeUsage = unusedDependencyService.checkDependencies(projectUsage.main(),
+                        projectUsage.test(), dependencies.files());
+                timer.count("jars", dependencies.files().size())
+                        .count("unused", scopeUsage.unusedArtifacts().size())
+                        .count("testUsed", scopeUsage.testJars().size());
+                return scopeUsage;
+            }
+        }, executor);
+
+        CompletableFuture<DependencyAnalysisResult> tree = resolved.thenCombineAsync(unused, (dependencies, scopeUsage) -> {
+            try (AnalysisMetrics.StageTimer timer = metrics.start("treeBuild")) {
+                OmittedDependencyFinder finder = new OmittedDependencyFinder(dependencies.rootNode(),
+                        scopeUsage.unusedArtifacts(), logger, pathResolver);
+                scopeUsage.applyTo(finder.getAllNodes());
+                timer.count("nodes", finder.getAllNodes().size())
+                        .count("omitted", finder.getOmittedDependencies().size())
+                        .count("misplacedScopes", ScopeUsage.countMisplaced(finder.getAllNodes()));
+                return new DependencyAnalysisResult(project, dependencies.rootNode(), dependencies.dependencies(),
+                        scopeUsage.unusedArtifacts(), finder, null, scopeUsage);
+            }
+        }, executor);
+
+        // Die JARs sind nach den JAR-Checks schon im Index, hier wird nichts mehr gelesen
+        return AnalysisStages.then(tree, result -> {
+            try (AnalysisMetrics.StageTimer timer = metrics.start("classpathConflicts")) {
+                List<DependencyTreeNode> nodes = result.getAllNodes();
+                ClasspathConflicts conflicts = new ClasspathConflictAnalyzer(jarClassIndex, logger).analyze(nodes);
+                conflicts.applyTo(nodes);
+                timer.count("conflictingJars", conflicts.getConflictingJarCount())
+                        .count("splitPackageJars", conflicts.getSplitPackageJarCount());
+                return new DependencyAnalysisResult(result.project(), result.rootNode(), result.dependencies(),
+                        result.unusedArtifacts(), result.finder(), conflicts, result.scopeUsage());
+            }
+        }, executor);
+    }
+}
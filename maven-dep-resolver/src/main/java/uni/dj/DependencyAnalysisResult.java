@@ -0,0 +1,24 @@
+package uni.dj;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+
+import java.util.List;
+import java.util.Set;
+
+/*
+    Result of analyzing the dependencies of a single Maven project.
+ */
+public record DependencyAnalysisResult(MavenProject project, DependencyNode rootNode, List<Dependency> dependencies,
+                                       Set<Artifact> unusedArtifacts, OmittedDependencyFinder finder,
+                                       ClasspathConflicts classpathConflicts, ScopeUsage scopeUsage) {
+
+    /*
+        @returns All nodes of the converted dependency tree.
+     */
+    public List<DependencyTreeNode> getAllNodes() {
+        return finder.getAllNodes();
+    }
+}
@@ -2,6 +2,7 @@ package uni.dj;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.aether.artifact.Artifact;
 import org.jetbrains.annotations.NotNull;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
@@ -13,48 +14,99 @@ import org.jgrapht.nio.dot.DOTExporter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /*
     Visualizes the dependency tree by generating DOT and PNG files using Graphviz.
+    All files are read from and written to the given output directory, never relative to the
+    working directory, so several modules can be visualized at the same time.
  */
 public class DependencyGraphVisualizer {
 
-    private Graph<String, DefaultEdge> graph;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final File outputDirectory;
+
+    public DependencyGraphVisualizer(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
 
     /*
         Main entry point for visualization.
         Reads the JSON dependency tree and exports it to DOT and PNG formats.
      */
-    public void visualize() throws IOException {
-        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+    public void visualize() throws IOException, InterruptedException {
+        Graph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
 
         // JSON parsen
-        JsonNode rootNode = mapper.readTree(new File("target/dependency-tree.json"));
+        JsonNode rootNode = mapper.readTree(new File(outputDirectory, "dependency-tree.json"));
 
         // Rekursiv alle Abhängigkeiten hinzufügen
         String rootId = createNodeId(rootNode);
         graph.addVertex(rootId);
 
-        processChildren(rootNode, rootId);
+        processChildren(graph, rootNode, rootId);
 
+        render(exportDot(graph));
+    }
 
-        // Als DOT exportieren
-        DOTExporter<String, DefaultEdge> exporter = getStringDefaultEdgeDOTExporter();
-
-        try (FileWriter writer = new FileWriter("target/dependency-tree.dot")) {
-            exporter.exportGraph(graph, writer);
+    /*
+        Exports the dependency tree directly from the in-memory nodes, without reading
+        dependency-tree.json, so it can run at the same time as the JSON export.
+        @returns The written DOT file.
+     */
+    public File exportDot(List<DependencyTreeNode> nodes) throws IOException {
+        Graph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        Map<DependencyTreeNode, String> ids = new IdentityHashMap<>();
+
+        // allNodes ist in Pre-Order, Eltern stehen immer vor ihren Kindern
+        for (DependencyTreeNode node : nodes) {
+            String id = createNodeId(node);
+            ids.put(node, id);
+            graph.addVertex(id);
+            if (node.getParent() != null) {
+                String parentId = ids.get(node.getParent());
+                if (parentId != null) {
+                    graph.addEdge(parentId, id);
+                }
+            }
         }
+        return exportDot(graph);
+    }
 
+    /*
+        Renders the DOT file to dependency-tree.png with Graphviz and waits for it to finish.
+     */
+    public void render(File dotFile) throws IOException, InterruptedException {
         // PNG generieren
-        Runtime.getRuntime().exec(new String[]{
+        Process process = Runtime.getRuntime().exec(new String[]{
                 "dot",
                 "-Tpng",
                 "-Grankdir=TB",  // Top-to-Bottom (vertikal)
-                "target/dependency-tree.dot",
+                dotFile.getAbsolutePath(),
                 "-o",
-                "target/dependency-tree.png"
+                new File(outputDirectory, "dependency-tree.png").getAbsolutePath()
         });
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException("Graphviz dot failed with exit code " + exitCode + " for " + dotFile);
+        }
+    }
+
+    /*
+        Writes the graph as dependency-tree.dot into the output directory.
+        @returns The written DOT file.
+     */
+    private File exportDot(Graph<String, DefaultEdge> graph) throws IOException {
+        // Als DOT exportieren
+        DOTExporter<String, DefaultEdge> exporter = getStringDefaultEdgeDOTExporter();
+
+        File dotFile = new File(outputDirectory, "dependency-tree.dot");
+        try (FileWriter writer = new FileWriter(dotFile)) {
+            exporter.exportGraph(graph, writer);
+        }
+        return dotFile;
     }
 
     /*
@@ -84,7 +136,7 @@ public class DependencyGraphVisualizer {
     /*
         Recursively processes JSON nodes and adds vertices and edges to the graph.
      */
-    private void processChildren(JsonNode node, String parentId) {
+    private void processChildren(Graph<String, DefaultEdge> graph, JsonNode node, String parentId) {
         JsonNode children = node.get("children");
         if (children != null && children.isArray()) {
             for (JsonNode child : children) {
@@ -93,7 +145,7 @@ public class DependencyGraphVisualizer {
                 graph.addEdge(parentId, childId);
 
                 // Rekursiv weiterverarbeiten
-                processChildren(child, childId);
+                processChildren(graph, child, childId);
             }
         }
     }
@@ -109,4 +161,16 @@ public class DependencyGraphVisualizer {
 
         return groupId + ":" + artifactId + ":" + version;
     }
+
+    /*
+        Creates the vertex identifier for an in-memory node, identical to the one built from the JSON.
+        @returns Vertex ID string (groupId:artifactId:version).
+     */
+    private String createNodeId(DependencyTreeNode node) {
+        if (node.node != null && node.node.getArtifact() != null) {
+            Artifact artifact = node.node.getArtifact();
+            return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion();
+        }
+        return ":" + node.getName() + ":" + node.getVersion();
+    }
 }
\ No newline at end of file
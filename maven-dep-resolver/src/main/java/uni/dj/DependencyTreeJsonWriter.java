@@ -1,7 +1,13 @@
 package uni.dj;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 /*
@@ -37,6 +43,27 @@ public class DependencyTreeJsonWriter {
         writer.flush();
     }
 
+    /*
+        Writes the dependency tree to a temporary file next to the target and moves it over the target,
+        so readers see either the old or the new file, never a partially written one.
+     */
+    public void writeAtomically(List<DependencyTreeNode> allNodes, File outputFile) throws IOException {
+        Path target = outputFile.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), outputFile.getName(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                write(allNodes, writer);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     /*
         Recursively writes a single dependency node and its children in JSON format.
      */
@@ -91,6 +118,14 @@ public class DependencyTreeJsonWriter {
         out.write(",\n");
         writeBooleanField(out, "unused", node.unused, indent + 2);
         out.write(",\n");
+        writeDuplicateClasses(out, node.duplicateClasses, indent + 2);
+        out.write(",\n");
+        writeStringArray(out, "splitPackages", node.splitPackages, indent + 2);
+        out.write(",\n");
+        writeStringArray(out, "usedBy", node.usedBy, indent + 2);
+        out.write(",\n");
+        writeNullableStringField(out, "suggestedScope", node.suggestedScope, indent + 2);
+        out.write(",\n");
 
         // Children
         indent(out, indent + 2);
@@ -120,6 +155,57 @@ public class DependencyTreeJsonWriter {
         out.write("}");
     }
 
+    /*
+        Writes the classes this node's JAR shares with other JARs of the classpath.
+     */
+    private void writeDuplicateClasses(Writer out, List<ClasspathConflicts.JarConflict> conflicts, int indent) throws IOException {
+        indent(out, indent);
+        out.write("\"duplicateClasses\": [");
+        if (conflicts != null && !conflicts.isEmpty()) {
+            out.write("\n");
+            for (int i = 0; i < conflicts.size(); i++) {
+                ClasspathConflicts.JarConflict conflict = conflicts.get(i);
+                indent(out, indent + 2);
+                out.write("{\n");
+                writeStringField(out, "artifact", conflict.artifact(), indent + 4);
+                out.write(",\n");
+                writeStringField(out, "jar", conflict.jar(), indent + 4);
+                out.write(",\n");
+                indent(out, indent + 4);
+                out.write("\"duplicateClasses\": " + conflict.duplicateClasses() + ",\n");
+                indent(out, indent + 4);
+                out.write("\"differentClasses\": " + conflict.differentClasses() + ",\n");
+                writeStringArray(out, "examples", conflict.examples(), indent + 4);
+                out.write("\n");
+                indent(out, indent + 2);
+                out.write(i < conflicts.size() - 1 ? "},\n" : "}\n");
+            }
+            indent(out, indent);
+        }
+        out.write("]");
+    }
+
+    /*
+        Writes a JSON array of strings on a single line.
+     */
+    private void writeStringArray(Writer out, String name, List<String> values, int indent) throws IOException {
+        indent(out, indent);
+        out.write("\"");
+        out.write(escapeJson(name));
+        out.write("\": [");
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    out.write(", ");
+                }
+                out.write("\"");
+                out.write(escapeJson(values.get(i)));
+                out.write("\"");
+            }
+        }
+        out.write("]");
+    }
+
     /*
         Writes a JSON string field with proper indentation and escaping.
      */
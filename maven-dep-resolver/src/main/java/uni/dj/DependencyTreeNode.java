@@ -26,6 +26,10 @@ public class DependencyTreeNode {
     public String getPathToDependencyPom = "";
     public String pathToDependency = "";
     public Boolean unused = false;
+    public List<ClasspathConflicts.JarConflict> duplicateClasses = new ArrayList<>();
+    public List<String> splitPackages = new ArrayList<>();
+    public List<String> usedBy = new ArrayList<>();
+    public String suggestedScope = null;
 
 
     /*
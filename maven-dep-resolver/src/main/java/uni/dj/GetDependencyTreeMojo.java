@@ -2,6 +2,7 @@ package uni.dj;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -11,23 +12,32 @@ import org.apache.maven.settings.Settings;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
-import org.eclipse.aether.collection.CollectResult;
-import org.eclipse.aether.graph.Dependency;
-import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.util.graph.transformer.ConflictResolver;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /*
     Mojo that analyzes the dependency tree, finds omitted and unused dependencies,
     and exports the result to JSON and DOT files.
+    Thread-safe: all state is per execution, the JAR class index and the path cache
+    are shared through the repository session.
  */
-@Mojo(name = "analyze-dependencies", defaultPhase = LifecyclePhase.PACKAGE)
+@Mojo(name = "analyze-dependencies", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
 public class GetDependencyTreeMojo extends AbstractMojo {
 
+    private static final String FINGERPRINT_FILE = "dependency-analysis.fingerprint";
+
+    // Im Stage-Graph laufen Sammeln, Projekt-Scan und Test-Scan gleichzeitig, ein Thread pro Zweig
+    private static final int STAGE_THREADS = DependencyAnalysisPipeline.PARALLEL_BRANCHES;
+
     @Parameter(defaultValue = "${settings}", required = true, readonly = true)
     Settings settings;
     @Component
@@ -43,10 +53,26 @@ public class GetDependencyTreeMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project.build.directory}", readonly = true)
     private File outputDirectory;
 
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor pluginDescriptor;
+
+    /*
+        Runs the analysis even if no input changed since the last run.
+     */
+    @Parameter(property = "dep-resolver.force", defaultValue = "false")
+    private boolean force;
+
+    /*
+        Emits a JFR event for every analysis stage, visible when a JFR recording is active.
+     */
+    @Parameter(property = "dep-resolver.jfr", defaultValue = "false")
+    private boolean jfrEvents;
+
     /*
         Main execution point for the Mojo.
         Orchestrates dependency collection, unused dependency analysis,
-        and result export.
+        and result export. Independent stages run concurrently, the first failing
+        stage fails the Mojo.
      */
     @Override
     public void execute() throws MojoExecutionException {
@@ -59,42 +85,124 @@ public class GetDependencyTreeMojo extends AbstractMojo {
             throw new IllegalStateException("Local repository path is not set in Maven settings.");
         }
 
+        File fingerprintFile = new File(outputDirectory, FINGERPRINT_FILE);
+        AnalysisFingerprint fingerprint = computeFingerprint(m2Repo, logger);
+        String fingerprintHex = fingerprint.toHex();
+        if (!force && fingerprint.isCacheable()
+                && AnalysisFingerprint.isUpToDate(fingerprintFile, fingerprintHex, getOutputFiles())) {
+            logger.info("Dependency analysis is up to date, skipping (use -Ddep-resolver.force=true to run anyway)");
+            return;
+        }
+
         DefaultRepositorySystemSession session = new DefaultRepositorySystemSession(repoSession);
         session.setLocalRepositoryManager(repoSession.getLocalRepositoryManager());
         session.setConfigProperty(ConflictResolver.CONFIG_PROP_VERBOSE, true);
 
         DependencyService dependencyService = new DependencyService(repoSystem, session);
-        ArtifactPathResolver pathResolver = new ArtifactPathResolver(m2Repo, logger);
-        UnusedDependencyService unusedDependencyService = new UnusedDependencyService(project, logger);
-
-        try {
-            if (!outputDirectory.exists()) {
-                outputDirectory.mkdirs();
-            }
-
-            CollectResult result = dependencyService.collectDependencies(project);
-            DependencyNode rootNode = result.getRoot();
-
-            List<Dependency> allDependencies = dependencyService.getAllDependencies(rootNode);
-            List<File> filepathList = pathResolver.resolveDependencyFiles(allDependencies);
-
-            logger.info("Found " + allDependencies.size() + " project dependencies");
+        ArtifactPathResolver pathResolver = ArtifactPathResolver.forSession(m2Repo, logger, repoSession);
 
-            Set<org.apache.maven.artifact.Artifact> unusedArtifacts = unusedDependencyService.analyzeUnusedDependencies(filepathList);
-
-            OmittedDependencyFinder finder = new OmittedDependencyFinder(rootNode, unusedArtifacts, logger, pathResolver);
-
-            File outputFile = new File(outputDirectory, "dependency-tree.json");
-            try (FileWriter writer = new FileWriter(outputFile)) {
-                new DependencyTreeJsonWriter().write(finder.getAllNodes(), writer);
-            }
-            logger.info("Dependency tree written to " + outputFile.getAbsolutePath());
+        if (!outputDirectory.exists()) {
+            outputDirectory.mkdirs();
+        }
 
-            new DependencyGraphVisualizer().visualize();
+        ExecutorService executor = Executors.newFixedThreadPool(STAGE_THREADS);
+        try {
+            DependencyAnalysisPipeline pipeline = new DependencyAnalysisPipeline(dependencyService, pathResolver,
+                    JarClassIndex.forSession(repoSession), executor);
+            AnalysisMetrics metrics = new AnalysisMetrics(project.getId(), jfrEvents);
+            CompletableFuture<DependencyAnalysisResult> analysis = pipeline.analyzeAsync(project, logger, metrics);
+
+            // JSON-Export und DOT-Export sind unabhaengig voneinander, nur das Rendern wartet auf die DOT-Datei
+            CompletableFuture<File> json = AnalysisStages.then(analysis, result -> {
+                File outputFile = new File(outputDirectory, "dependency-tree.json");
+                try (AnalysisMetrics.StageTimer timer = metrics.start("jsonWrite");
+                     FileWriter writer = new FileWriter(outputFile)) {
+                    List<DependencyTreeNode> nodes = result.getAllNodes();
+                    new DependencyTreeJsonWriter().write(nodes, writer);
+                    timer.count("nodes", nodes.size());
+                }
+                logger.info("Dependency tree written to " + outputFile.getAbsolutePath());
+                return outputFile;
+            }, executor);
+
+            DependencyGraphVisualizer visualizer = new DependencyGraphVisualizer(outputDirectory);
+            CompletableFuture<File> dot = AnalysisStages.then(analysis, result -> {
+                try (AnalysisMetrics.StageTimer timer = metrics.start("dotExport")) {
+                    List<DependencyTreeNode> nodes = result.getAllNodes();
+                    timer.count("nodes", nodes.size());
+                    return visualizer.exportDot(nodes);
+                }
+            }, executor);
+            CompletableFuture<File> png = AnalysisStages.then(dot, dotFile -> {
+                try (AnalysisMetrics.StageTimer ignored = metrics.start("render")) {
+                    visualizer.render(dotFile);
+                }
+                return dotFile;
+            }, executor);
+
+            CompletableFuture<File> conflicts = AnalysisStages.then(analysis, result -> {
+                try (AnalysisMetrics.StageTimer timer = metrics.start("conflictReport")) {
+                    VersionConflictReport report = new VersionConflictReport();
+                    report.add(project.getArtifactId(), result.getAllNodes());
+                    File conflictsFile = new File(outputDirectory, "dependency-conflicts.json");
+                    report.writeJson(conflictsFile);
+                    report.writeCsv(new File(outputDirectory, "dependency-conflicts.csv"));
+                    timer.count("conflicts", report.getConflictCount()).count("downgrades", report.getDowngradeCount());
+                    logger.info("Found " + report.getConflictCount() + " version conflicts ("
+                            + report.getDowngradeCount() + " downgrades), written to " + conflictsFile.getAbsolutePath());
+                    return conflictsFile;
+                }
+            }, executor);
+
+            AnalysisStages.await(CompletableFuture.allOf(json, png, conflicts));
+
+            File metricsFile = new File(outputDirectory, "dependency-analysis-metrics.json");
+            metrics.write(metricsFile);
+            logger.info("Analysis metrics written to " + metricsFile.getAbsolutePath());
+
+            AnalysisFingerprint.store(fingerprintFile, fingerprintHex);
 
         } catch (Exception e) {
             throw new MojoExecutionException("Failed to analyze dependencies", e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
-}
\ No newline at end of file
+    /*
+        Computes the fingerprint over all inputs of the analysis.
+        @returns AnalysisFingerprint of the current inputs.
+     */
+    private AnalysisFingerprint computeFingerprint(File m2Repo, MavenLogger logger) throws MojoExecutionException {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("localRepository", m2Repo.getAbsolutePath());
+        parameters.put("outputDirectory", outputDirectory.getAbsolutePath());
+        // haengt ohne maven.compiler.release/target vom laufenden JDK ab
+        parameters.put("targetRelease",
+                String.valueOf(new UnusedDependencyService(project, logger).getTargetRelease()));
+
+        try {
+            return new AnalysisFingerprint()
+                    .add("pluginVersion", pluginDescriptor != null ? pluginDescriptor.getVersion() : "")
+                    .addProject(project)
+                    .addDirectory("classes", new File(project.getBuild().getOutputDirectory()))
+                    .addDirectory("testClasses", new File(project.getBuild().getTestOutputDirectory()))
+                    .addParameters(parameters);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to compute the analysis fingerprint", e);
+        }
+    }
+
+    /*
+        @returns The files written by the analysis, all of them must exist to skip a run.
+     */
+    private List<File> getOutputFiles() {
+        return List.of(
+                new File(outputDirectory, "dependency-tree.json"),
+                new File(outputDirectory, "dependency-tree.dot"),
+                new File(outputDirectory, "dependency-tree.png"),
+                new File(outputDirectory, "dependency-conflicts.json"),
+                new File(outputDirectory, "dependency-conflicts.csv"));
+    }
+
+}
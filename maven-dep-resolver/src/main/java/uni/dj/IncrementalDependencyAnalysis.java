@@ -0,0 +1,210 @@
+package uni.dj;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Dependency analysis of one project that stays in memory between runs.
+    Keeps the collected dependency graph, the JAR class index and the per-class-file references,
+    and only repeats what a change affects:
+        POM changed with different dependencies -> collect and resolve paths again
+        class files changed                     -> scan only those class files (main and test classes)
+    Checking the JARs and building the tree then run on the cached data.
+ */
+public class IncrementalDependencyAnalysis {
+
+    /*
+        Loads the current state of the project, e.g. by building it again from its pom.xml.
+     */
+    @FunctionalInterface
+    public interface ProjectLoader {
+        MavenProject load() throws Exception;
+    }
+
+    /*
+        Outcome of a refresh: what had to be redone and the current result.
+     */
+    public record Refresh(boolean recollected, int changedClassFiles, long millis, DependencyAnalysisResult result) {
+
+        /*
+            @returns true if the result differs from the previous refresh.
+         */
+        public boolean changed() {
+            return recollected || changedClassFiles > 0;
+        }
+    }
+
+    private final ProjectLoader projectLoader;
+    private final DependencyService dependencyService;
+    private final ArtifactPathResolver pathResolver;
+    private final JarClassIndex jarClassIndex;
+    private final ProjectUsageIndex usageIndex;
+    private final ProjectUsageIndex testUsageIndex;
+    private final MavenLogger logger;
+
+    private MavenProject project;
+    private String projectFingerprint;
+    private boolean projectCacheable;
+    private long pomLength = -1;
+    private long pomLastModified = -1;
+
+    private DependencyNode rootNode;
+    private List<Dependency> dependencies;
+    private List<File> dependencyFiles;
+    private ClasspathConflicts classpathConflicts;
+    private DependencyAnalysisResult result;
+
+    public IncrementalDependencyAnalysis(MavenProject project, ProjectLoader projectLoader,
+                                         DependencyService dependencyService, ArtifactPathResolver pathResolver,
+                                         JarClassIndex jarClassIndex, MavenLogger logger) {
+        this.project = project;
+        this.projectLoader = projectLoader;
+        this.dependencyService = dependencyService;
+        this.pathResolver = pathResolver;
+        this.jarClassIndex = jarClassIndex;
+        this.usageIndex = new ProjectUsageIndex(logger, jarClassIndex);
+        this.testUsageIndex = new ProjectUsageIndex(logger, jarClassIndex);
+        this.logger = logger;
+        rememberProject(project);
+    }
+
+    /*
+        Checks pom.xml and all class files for changes and updates the result.
+        @returns Refresh with the current result.
+     */
+    public synchronized Refresh refresh() throws Exception {
+        return refresh(isPomModified(), null);
+    }
+
+    /*
+        Updates the result for known changes.
+        changedClassFiles == null compares all class files of the output directory.
+        The test classes are always compared, their directory is not watched.
+        @returns Refresh with the current result.
+     */
+    public synchronized Refresh refresh(boolean pomChanged, Collection<File> changedClassFiles) throws Exception {
+        long start = System.nanoTime();
+
+        boolean recollect = rootNode == null;
+        if (pomChanged) {
+            String previousFingerprint = projectFingerprint;
+            rememberProject(projectLoader.load());
+            // SNAPSHOT- und Range-Versionen koennen sich ohne Aenderung am POM aendern
+            recollect |= !projectCacheable || !projectFingerprint.equals(previousFingerprint);
+        }
+
+        if (recollect) {
+            collect();
+        }
+
+        File classesDirectory = new File(project.getBuild().getOutputDirectory());
+        int changedClasses = changedClassFiles == null
+                ? usageIndex.refresh(classesDirectory)
+                : usageIndex.update(changedClassFiles);
+        String testOutputDirectory = project.getBuild().getTestOutputDirectory();
+        if (testOutputDirectory != null) {
+            changedClasses += testUsageIndex.refresh(new File(testOutputDirectory));
+        }
+
+        if (recollect || changedClasses > 0 || result == null) {
+            UnusedDependencyService unusedDependencyService = new UnusedDependencyService(project, logger, jarClassIndex);
+            UnusedDependencyAnalyzer mainUsage = usageIndex.createAnalyzer();
+            UnusedDependencyAnalyzer testUsage = testUsageIndex.createAnalyzer();
+            mainUsage.setTargetRelease(unusedDependencyService.getTargetRelease());
+            testUsage.setTargetRelease(unusedDependencyService.getTargetRelease());
+            ScopeUsage scopeUsage = unusedDependencyService.checkDependencies(mainUsage, testUsage, dependencyFiles);
+            OmittedDependencyFinder finder = new OmittedDependencyFinder(rootNode, scopeUsage.unusedArtifacts(),
+                    logger, pathResolver);
+            List<DependencyTreeNode> nodes = finder.getAllNodes();
+            scopeUsage.applyTo(nodes);
+            // Konflikte haengen nur vom Classpath ab, nicht von den Klassen des Projekts
+            if (recollect || classpathConflicts == null) {
+                classpathConflicts = new ClasspathConflictAnalyzer(jarClassIndex, logger).analyze(nodes);
+            }
+            classpathConflicts.applyTo(nodes);
+            result = new DependencyAnalysisResult(project, rootNode, dependencies, scopeUsage.unusedArtifacts(),
+                    finder, classpathConflicts, scopeUsage);
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (recollect || changedClasses > 0) {
+            logger.info("Analysis refreshed in " + millis + " ms (dependencies collected: " + recollect
+                    + ", class files rescanned: " + changedClasses + ")");
+        }
+        return new Refresh(recollect, changedClasses, millis, result);
+    }
+
+    /*
+        Forgets the collected dependency graph, the next refresh collects it again.
+     */
+    public synchronized void invalidate() {
+        rootNode = null;
+    }
+
+    /*
+        @returns The result of the last refresh, null before the first refresh.
+     */
+    public synchronized DependencyAnalysisResult getResult() {
+        return result;
+    }
+
+    /*
+        @returns The project as of the last refresh.
+     */
+    public synchronized MavenProject getProject() {
+        return project;
+    }
+
+    /*
+        @returns Number of indexed project class files, main and test classes.
+     */
+    public int getClassFileCount() {
+        return usageIndex.size() + testUsageIndex.size();
+    }
+
+    /*
+        @returns Number of JARs listed by the JAR class index.
+     */
+    public int getIndexedJarCount() {
+        return jarClassIndex.size();
+    }
+
+    /*
+        Collects the dependency graph and resolves the JAR files.
+     */
+    private void collect() throws Exception {
+        rootNode = dependencyService.collectDependencies(project).getRoot();
+        dependencies = dependencyService.getAllDependencies(rootNode);
+        dependencyFiles = pathResolver.resolveDependencyFiles(dependencies);
+        logger.info("Found " + dependencies.size() + " project dependencies");
+    }
+
+    /*
+        @returns true if size or modification time of pom.xml changed since it was loaded.
+     */
+    private boolean isPomModified() {
+        File pom = project.getFile();
+        return pom != null && (pom.length() != pomLength || pom.lastModified() != pomLastModified);
+    }
+
+    /*
+        Stores the project together with the fingerprint of its dependencies and the state of its pom.xml.
+     */
+    private void rememberProject(MavenProject loaded) {
+        project = loaded;
+        File pom = loaded.getFile();
+        if (pom != null) {
+            pomLength = pom.length();
+            pomLastModified = pom.lastModified();
+        }
+        AnalysisFingerprint fingerprint = new AnalysisFingerprint().addProject(loaded);
+        projectCacheable = fingerprint.isCacheable();
+        projectFingerprint = fingerprint.toHex();
+    }
+}
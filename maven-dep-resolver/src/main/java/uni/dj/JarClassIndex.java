@@ -0,0 +1,222 @@
+package uni.dj;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/*
+    Index of the class names contained in dependency JARs.
+    Every JAR is listed only once, all later lookups are answered from memory,
+    so one index can be shared by all modules of a reactor.
+    Safe for concurrent use: a JAR requested by several threads at once is still listed only once.
+ */
+public class JarClassIndex {
+
+    private static final String SESSION_KEY = JarClassIndex.class.getName();
+
+    /*
+        Listing of a single JAR: the class names and the CRC-32 of every class entry, both taken
+        from the zip central directory, and the keys and classes of its service descriptors
+        (see ServiceDescriptors) and its module declaration (see ModuleDescriptors), the only entries
+        that are inflated.
+        classNames holds the classes outside META-INF/versions, releaseClasses the classes a multi-release
+        JAR only has in META-INF/versions/<N>, with the lowest such N.
+        moduleName is null for JARs without module-info and Automatic-Module-Name.
+     */
+    public record JarContents(Set<String> classNames, Map<String, Long> classCrcs,
+                              Set<String> serviceKeys, Set<String> serviceProviders,
+                              Map<String, Integer> releaseClasses, String moduleName, Set<String> requiredModules) {
+
+        /*
+            @returns The class names visible when running on the given Java release.
+         */
+        public Set<String> classNames(int release) {
+            if (releaseClasses.isEmpty()) {
+                return classNames;
+            }
+            Set<String> visible = new HashSet<>(classNames);
+            releaseClasses.forEach((className, since) -> {
+                if (since <= release) {
+                    visible.add(className);
+                }
+            });
+            return visible;
+        }
+    }
+
+    private final Map<String, FutureTask<JarContents>> contentsByJar = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<Set<String>>> referencesByJar = new ConcurrentHashMap<>();
+
+    /*
+        Returns the index stored in the repository session, creating it on first access.
+        All Mojo executions of one Maven build (also with -T) share this instance.
+        @returns The session-wide JarClassIndex.
+     */
+    public static JarClassIndex forSession(RepositorySystemSession session) {
+        SessionData data = session.getData();
+        Object index = data.get(SESSION_KEY);
+        while (index == null) {
+            data.set(SESSION_KEY, null, new JarClassIndex());
+            index = data.get(SESSION_KEY);
+        }
+        return (JarClassIndex) index;
+    }
+
+    /*
+        Returns the class names of the given JAR, listing the JAR on first access.
+        @returns Unmodifiable set of class internal names.
+     */
+    public Set<String> getClassNames(File jarFile) throws Exception {
+        return getContents(jarFile).classNames();
+    }
+
+    /*
+        Returns the listing of the given JAR, listing the JAR on first access.
+        The cache key contains size and modification time, so a rebuilt JAR is listed again.
+        @returns JarContents of the JAR.
+     */
+    public JarContents getContents(File jarFile) throws Exception {
+        return memoize(contentsByJar, jarFile, () -> listJar(jarFile));
+    }
+
+    /*
+        Returns the classes the bytecode of the given JAR references in other JARs, scanning the JAR
+        on first access. Unlike the listing this inflates every class, so it is only requested for
+        JARs that are known to be used.
+        @returns Unmodifiable set of class internal names, without the JAR's own classes and the java/ packages.
+     */
+    public Set<String> getReferencedClasses(File jarFile, MavenLogger logger) throws Exception {
+        return memoize(referencesByJar, jarFile, () -> scanReferences(jarFile, logger));
+    }
+
+    /*
+        Computes the value for a JAR once, concurrent callers for the same JAR wait for the first one.
+        The cache key contains size and modification time, so a rebuilt JAR is read again.
+        @returns The cached or computed value.
+     */
+    private static <T> T memoize(Map<String, FutureTask<T>> cache, File jarFile, Callable<T> loader) throws Exception {
+        String key = jarFile.getAbsolutePath() + "|" + jarFile.length() + "|" + jarFile.lastModified();
+        FutureTask<T> task = cache.get(key);
+        if (task == null) {
+            // Das Lesen laeuft ausserhalb der Map, parallele Zugriffe auf andere JARs blockieren nicht
+            FutureTask<T> newTask = new FutureTask<>(loader);
+            task = cache.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Fehlgeschlagene Zugriffe nicht cachen, damit ein spaeterer Versuch das JAR erneut liest
+            cache.remove(key, task);
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /*
+        @returns Number of JARs listed so far.
+     */
+    public int size() {
+        return contentsByJar.size();
+    }
+
+    /*
+        Scans the bytecode of a JAR and keeps only the references that can point into other JARs.
+        @returns Unmodifiable set of class internal names.
+     */
+    private Set<String> scanReferences(File jarFile, MavenLogger logger) throws Exception {
+        UnusedDependencyAnalyzer scanner = new UnusedDependencyAnalyzer(logger, this);
+        scanner.analyzeJarBytecode(jarFile);
+
+        Set<String> ownClasses = getContents(jarFile).classNames(Integer.MAX_VALUE);
+        Set<String> references = new HashSet<>();
+        for (String className : scanner.getUsedClasses()) {
+            if (!className.startsWith("java/") && !ownClasses.contains(className)) {
+                references.add(className);
+            }
+        }
+        return Collections.unmodifiableSet(references);
+    }
+
+    /*
+        Extracts all class names present in a JAR file together with their CRCs, its service descriptors
+        and its module declaration.
+        Uses ZipFile instead of JarFile, the listing needs neither signature verification nor
+        the multi-release view of JarFile, it reads the versioned entries itself.
+        @returns JarContents with unmodifiable collections.
+     */
+    private JarContents listJar(File jarFile) throws Exception {
+        Set<String> classNames = new HashSet<>();
+        Map<String, Long> classCrcs = new HashMap<>();
+        Set<String> serviceKeys = new HashSet<>();
+        Set<String> serviceProviders = new HashSet<>();
+        Map<String, Integer> releaseClasses = new HashMap<>();
+        Set<String> requiredModules = new HashSet<>();
+        String moduleName = null;
+        int moduleRelease = Integer.MAX_VALUE;
+        String automaticModuleName = null;
+
+        try (ZipFile jar = new ZipFile(jarFile)) {
+            Enumeration<? extends ZipEntry> entries = jar.entries();
+
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                int release = ModuleDescriptors.releaseOf(name);
+
+                if (release >= 0 && ModuleDescriptors.isModuleInfo(ModuleDescriptors.stripRelease(name))
+                        && ModuleDescriptors.stripRelease(name).indexOf('/') < 0) {
+                    // Bei mehreren module-info gilt die niedrigste Version, die Basis-Version zuerst
+                    if (release < moduleRelease) {
+                        Set<String> modules = new HashSet<>();
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            moduleName = ModuleDescriptors.read(in, modules, new HashSet<>(), serviceKeys, serviceProviders);
+                        }
+                        requiredModules = modules;
+                        moduleRelease = release;
+                    }
+                } else if (name.endsWith(".class") && release > 0) {
+                    String className = ModuleDescriptors.stripRelease(name);
+                    releaseClasses.merge(className.substring(0, className.length() - ".class".length()), release,
+                            Math::min);
+                } else if (name.endsWith(".class") && !name.startsWith("META-INF")) {
+                    String className = name.substring(0, name.length() - ".class".length());
+                    classNames.add(className);
+                    classCrcs.put(className, entry.getCrc());
+                } else if (ServiceDescriptors.isDescriptor(name)) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        ServiceDescriptors.parse(name, in, serviceKeys, serviceProviders);
+                    }
+                } else if (ModuleDescriptors.isManifest(name)) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        automaticModuleName = ModuleDescriptors.automaticModuleName(in);
+                    }
+                }
+            }
+        }
+
+        // Versionierte Kopien von Basis-Klassen aendern die Menge der Klassen nicht
+        releaseClasses.keySet().removeAll(classNames);
+        return new JarContents(Collections.unmodifiableSet(classNames), Collections.unmodifiableMap(classCrcs),
+                Collections.unmodifiableSet(serviceKeys), Collections.unmodifiableSet(serviceProviders),
+                Collections.unmodifiableMap(releaseClasses), moduleName != null ? moduleName : automaticModuleName,
+                Collections.unmodifiableSet(requiredModules));
+    }
+}
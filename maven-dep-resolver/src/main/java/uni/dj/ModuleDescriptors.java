@@ -0,0 +1,150 @@
+package uni.dj;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.jar.Manifest;
+
+/*
+    Reader for the module declarations of the Java module system:
+        module-info.class                                     at the root or in META-INF/versions/<N>/
+        Automatic-Module-Name in META-INF/MANIFEST.MF         name of a JAR without module-info
+    Module level dependencies of a module:
+        requires <module>                                     the module is needed
+        exports/opens <package> to <module>                   the module accesses the package, e.g. by reflection
+        uses <service> / provides <service> with <classes>    services as with META-INF/services
+    Modules of the platform (java.*, jdk.*) are skipped, class names are returned as internal names (a/b/C).
+ */
+public final class ModuleDescriptors {
+
+    private static final String MODULE_INFO = "module-info.class";
+    private static final String VERSIONS = "META-INF/versions/";
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private ModuleDescriptors() {
+    }
+
+    /*
+        @returns true if the JAR entry name or file path denotes a module-info.class.
+     */
+    public static boolean isModuleInfo(String path) {
+        String name = path.replace('\\', '/');
+        return name.equals(MODULE_INFO) || name.endsWith("/" + MODULE_INFO);
+    }
+
+    /*
+        @returns true if the JAR entry name is the manifest.
+     */
+    public static boolean isManifest(String name) {
+        return name.equals(MANIFEST);
+    }
+
+    /*
+        @returns The release of an entry in META-INF/versions/<N>/ of a multi-release JAR,
+                 0 for entries outside META-INF/versions and -1 for malformed version directories.
+     */
+    public static int releaseOf(String name) {
+        if (!name.startsWith(VERSIONS)) {
+            return 0;
+        }
+        int separator = name.indexOf('/', VERSIONS.length());
+        if (separator < 0) {
+            return -1;
+        }
+        try {
+            int release = Integer.parseInt(name.substring(VERSIONS.length(), separator));
+            return release > 0 ? release : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /*
+        @returns The entry name without the META-INF/versions/<N>/ prefix.
+     */
+    public static String stripRelease(String name) {
+        return releaseOf(name) > 0 ? name.substring(name.indexOf('/', VERSIONS.length()) + 1) : name;
+    }
+
+    /*
+        Reads a module-info.class and adds the modules it depends on, the services it uses
+        and the services and classes it provides.
+        @returns The name of the module.
+     */
+    public static String read(InputStream in, Set<String> requiredModules, Set<String> usedServices,
+                              Set<String> providedServices, Set<String> providers) throws IOException {
+        String[] moduleName = new String[1];
+        new ClassReader(in).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public ModuleVisitor visitModule(String name, int access, String version) {
+                moduleName[0] = name;
+                return new ModuleVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitRequire(String module, int access, String version) {
+                        addModule(module, requiredModules);
+                    }
+
+                    @Override
+                    public void visitExport(String packaze, int access, String... modules) {
+                        addModules(modules, requiredModules);
+                    }
+
+                    @Override
+                    public void visitOpen(String packaze, int access, String... modules) {
+                        addModules(modules, requiredModules);
+                    }
+
+                    @Override
+                    public void visitUse(String service) {
+                        usedServices.add(service);
+                    }
+
+                    @Override
+                    public void visitProvide(String service, String... providerClasses) {
+                        providedServices.add(service);
+                        Collections.addAll(providers, providerClasses);
+                    }
+                };
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return moduleName[0];
+    }
+
+    /*
+        @returns The Automatic-Module-Name of a manifest, or null.
+     */
+    public static String automaticModuleName(InputStream in) throws IOException {
+        String name = new Manifest(in).getMainAttributes().getValue("Automatic-Module-Name");
+        return name != null && !name.isBlank() ? name.trim() : null;
+    }
+
+    /*
+        @returns true for modules of the Java platform, which never come from a dependency.
+     */
+    public static boolean isPlatformModule(String module) {
+        return module.startsWith("java.") || module.startsWith("jdk.");
+    }
+
+    /*
+        Adds the targets of a qualified export or open, unqualified ones have none.
+     */
+    private static void addModules(String[] modules, Set<String> target) {
+        if (modules != null) {
+            for (String module : modules) {
+                addModule(module, target);
+            }
+        }
+    }
+
+    private static void addModule(String module, Set<String> target) {
+        if (!isPlatformModule(module)) {
+            target.add(module);
+        }
+    }
+}
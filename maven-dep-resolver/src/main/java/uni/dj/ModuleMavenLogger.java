@@ -0,0 +1,40 @@
+package uni.dj;
+
+/*
+    MavenLogger that prefixes every message with the module name.
+    Used when several modules are analyzed at the same time and their log lines interleave.
+ */
+public record ModuleMavenLogger(String module, MavenLogger delegate) implements MavenLogger {
+
+    /*
+        Logs an info message.
+     */
+    @Override
+    public void info(String msg) {
+        delegate.info("[" + module + "] " + msg);
+    }
+
+    /*
+        Logs a debug message.
+     */
+    @Override
+    public void debug(String msg) {
+        delegate.debug("[" + module + "] " + msg);
+    }
+
+    /*
+        Logs a warning message.
+     */
+    @Override
+    public void warn(String msg) {
+        delegate.warn("[" + module + "] " + msg);
+    }
+
+    /*
+        Logs an error message.
+     */
+    @Override
+    public void error(String msg) {
+        delegate.error("[" + module + "] " + msg);
+    }
+}
@@ -4,7 +4,9 @@ import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.util.graph.transformer.ConflictResolver;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -13,6 +15,8 @@ import java.util.stream.Collectors;
  */
 public class OmittedDependencyFinder {
     private final List<DependencyTreeNode> allNodes = new ArrayList<>();
+    // name|version|scope -> erster Node, damit findNode nicht alle Nodes durchsucht
+    private final Map<String, DependencyTreeNode> nodesByKey = new HashMap<>();
 
     private final ArtifactPathResolver pathResolver;
 
@@ -79,6 +83,7 @@ public class OmittedDependencyFinder {
             }
         });
         allNodes.add(myNode);
+        nodesByKey.putIfAbsent(nodeKey(myNode.getName(), myNode.getVersion(), myNode.getScope()), myNode);
 
         for (DependencyNode child : currentNode.getChildren()) {
             traverseTree(child, myNode, unusedArtifacts);
@@ -108,12 +113,14 @@ public class OmittedDependencyFinder {
         @returns The matching DependencyTreeNode, or null if not found.
      */
     public DependencyTreeNode findNode(String name, String version, String scope) {
-        return allNodes.stream()
-                .filter(node -> node.getName().equals(name)
-                        && node.getVersion().equals(version)
-                        && node.getScope().equals(scope))
-                .findFirst()
-                .orElse(null);
+        return nodesByKey.get(nodeKey(name, version, scope));
+    }
+
+    /*
+        @returns Lookup key of a node.
+     */
+    private static String nodeKey(String name, String version, String scope) {
+        return name + "|" + version + "|" + scope;
     }
 
     /*
@@ -0,0 +1,136 @@
+package uni.dj;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    Classes referenced by the project bytecode and service descriptors, kept per file.
+    After a change only the changed class files are scanned again, the references of the
+    unchanged files stay in memory. Used by the long-running goals (daemon, watch).
+ */
+public class ProjectUsageIndex {
+
+    /*
+        Scanned state of a single class file.
+     */
+    private record ClassFileEntry(long length, long lastModified, Set<String> references, Set<String> modules) {
+    }
+
+    private final MavenLogger logger;
+    private final JarClassIndex jarClassIndex;
+    private final Map<File, ClassFileEntry> entries = new HashMap<>();
+
+    // Anzahl der Klassendateien, die eine Klasse referenzieren
+    private final Map<String, Integer> referenceCounts = new HashMap<>();
+
+    public ProjectUsageIndex(MavenLogger logger, JarClassIndex jarClassIndex) {
+        this.logger = logger;
+        this.jarClassIndex = jarClassIndex;
+    }
+
+    /*
+        Compares the class files below the directory with the indexed state, scans new and
+        changed files and forgets deleted ones.
+        @returns Number of class files that were added, changed or removed.
+     */
+    public synchronized int refresh(File classesDirectory) throws Exception {
+        Set<File> present = new HashSet<>();
+        collectClassFiles(classesDirectory, present);
+
+        Set<File> changed = new HashSet<>();
+        for (File file : present) {
+            ClassFileEntry entry = entries.get(file);
+            if (entry == null || entry.length() != file.length() || entry.lastModified() != file.lastModified()) {
+                changed.add(file);
+            }
+        }
+        for (File file : entries.keySet()) {
+            if (!present.contains(file)) {
+                changed.add(file);
+            }
+        }
+        return update(changed);
+    }
+
+    /*
+        Rescans the given class files, files that no longer exist are removed from the index.
+        @returns Number of class files that were updated.
+     */
+    public synchronized int update(Collection<File> classFiles) throws Exception {
+        int updated = 0;
+        for (File file : classFiles) {
+            File classFile = file.getAbsoluteFile();
+            boolean descriptor = ServiceDescriptors.isDescriptor(classFile.getPath());
+            if (!classFile.getName().endsWith(".class") && !descriptor) {
+                continue;
+            }
+
+            ClassFileEntry previous = entries.remove(classFile);
+            if (previous != null) {
+                previous.references().forEach(name -> referenceCounts.computeIfPresent(name,
+                        (key, count) -> count > 1 ? count - 1 : null));
+            }
+
+            if (classFile.isFile()) {
+                long length = classFile.length();
+                long lastModified = classFile.lastModified();
+                UnusedDependencyAnalyzer scanner = new UnusedDependencyAnalyzer(logger, jarClassIndex);
+                if (descriptor) {
+                    scanner.analyzeDescriptorFile(classFile);
+                } else {
+                    scanner.analyzeClassFile(classFile);
+                }
+                Set<String> references = Set.copyOf(scanner.getUsedClasses());
+                entries.put(classFile, new ClassFileEntry(length, lastModified, references,
+                        Set.copyOf(scanner.getUsedModules())));
+                references.forEach(name -> referenceCounts.merge(name, 1, Integer::sum));
+            }
+            updated++;
+        }
+
+        if (updated > 0) {
+            logger.debug("Updated " + updated + " class files, " + referenceCounts.size() + " referenced classes");
+        }
+        return updated;
+    }
+
+    /*
+        Creates an analyzer that knows all classes currently referenced by the project,
+        without scanning any bytecode.
+        @returns UnusedDependencyAnalyzer for checking dependency JARs.
+     */
+    public synchronized UnusedDependencyAnalyzer createAnalyzer() {
+        UnusedDependencyAnalyzer analyzer = new UnusedDependencyAnalyzer(logger, jarClassIndex);
+        analyzer.addUsedClasses(referenceCounts.keySet());
+        // Nur module-info.class hat Module, das sind hoechstens wenige Eintraege
+        entries.values().forEach(entry -> analyzer.addUsedModules(entry.modules()));
+        return analyzer;
+    }
+
+    /*
+        @returns Number of indexed class files.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /*
+        Recursively collects all .class files and service descriptors below a directory.
+     */
+    private void collectClassFiles(File directory, Set<File> classFiles) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectClassFiles(file, classFiles);
+            } else if (file.getName().endsWith(".class") || ServiceDescriptors.isDescriptor(file.getPath())) {
+                classFiles.add(file.getAbsoluteFile());
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package uni.dj;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+    Watches pom.xml and the class output directory (recursively) of a project with a WatchService.
+    Changes are collected until no further event arrives within the debounce time, so a compiler
+    writing hundreds of class files results in a single update.
+ */
+public class ProjectWatcher implements Closeable {
+
+    /*
+        Changes since the last call of take().
+        fullRescan is set if events were lost, then the class files must be compared completely.
+     */
+    public record Changes(boolean pomChanged, Set<File> classFiles, boolean fullRescan) {
+    }
+
+    private final WatchService watchService;
+    private final Path pomFile;
+    private final Path classesDirectory;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    public ProjectWatcher(File pomFile, File classesDirectory) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.pomFile = pomFile.toPath().toAbsolutePath();
+        this.classesDirectory = classesDirectory.toPath().toAbsolutePath();
+
+        register(this.pomFile.getParent());
+        Files.createDirectories(this.classesDirectory);
+        registerClassesDirectory(null);
+    }
+
+    /*
+        Waits for the next relevant change and collects all changes until the watched files are quiet
+        for debounceMillis. Events for other files in the watched directories are ignored.
+        @returns The collected changes.
+     */
+    public Changes take(long debounceMillis) throws InterruptedException, IOException {
+        boolean pomChanged = false;
+        boolean fullRescan = false;
+        Set<File> classFiles = new HashSet<>();
+
+        WatchKey key = watchService.take();
+        while (key != null) {
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                    fullRescan = true;
+                    continue;
+                }
+
+                Path path = directory.resolve((Path) event.context());
+                if (path.equals(pomFile)) {
+                    pomChanged = true;
+                } else if (classesDirectory.startsWith(path)) {
+                    // target/ oder target/classes wurde neu angelegt (z.B. nach mvn clean)
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        registerClassesDirectory(classFiles);
+                    }
+                    if (path.equals(classesDirectory)) {
+                        fullRescan |= event.kind() == StandardWatchEventKinds.ENTRY_DELETE;
+                    }
+                } else if (path.startsWith(classesDirectory)) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        // Neue Pakete registrieren, die darin schon geschriebenen Dateien mitnehmen
+                        registerRecursively(path, classFiles);
+                    } else if (path.toString().endsWith(".class") || ServiceDescriptors.isDescriptor(path.toString())) {
+                        classFiles.add(path.toFile());
+                    }
+                }
+            }
+
+            if (!key.reset()) {
+                // Verzeichnis geloescht (z.B. mvn clean), Inhalt nicht mehr nachvollziehbar
+                directories.remove(key);
+                fullRescan = true;
+            }
+            key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+            if (key == null && !pomChanged && !fullRescan && classFiles.isEmpty()) {
+                // Nur irrelevante Aenderungen, z.B. die eigene dependency-tree.json
+                key = watchService.take();
+            }
+        }
+
+        return new Changes(pomChanged, classFiles, fullRescan);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /*
+        Registers the existing directories between the project directory and the class output directory,
+        so that a re-created output directory is noticed, and the output directory itself recursively.
+     */
+    private void registerClassesDirectory(Set<File> classFiles) throws IOException {
+        Path projectDirectory = pomFile.getParent();
+        for (Path directory = classesDirectory.getParent();
+             directory != null && directory.startsWith(projectDirectory) && !directory.equals(projectDirectory);
+             directory = directory.getParent()) {
+            if (Files.isDirectory(directory)) {
+                register(directory);
+            }
+        }
+        if (Files.isDirectory(classesDirectory)) {
+            registerRecursively(classesDirectory, classFiles);
+        }
+    }
+
+    /*
+        Registers a directory and all its subdirectories. If classFiles is given, the class files
+        found while walking are added to it.
+     */
+    private void registerRecursively(Path root, Set<File> classFiles) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                register(directory);
+                if (classFiles != null) {
+                    try (Stream<Path> files = Files.list(directory)) {
+                        files.filter(file -> file.toString().endsWith(".class"))
+                                .forEach(file -> classFiles.add(file.toFile()));
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /*
+        Registers a single directory for create, modify and delete events.
+     */
+    private void register(Path directory) throws IOException {
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, directory);
+    }
+}
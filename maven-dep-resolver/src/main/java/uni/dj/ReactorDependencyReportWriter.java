@@ -0,0 +1,73 @@
+package uni.dj;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Writes the reactor-level dependency report.
+    Contains one summary entry per module and a reference to the module's own dependency-tree.json.
+ */
+public class ReactorDependencyReportWriter {
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /*
+        Writes the report for all analyzed modules to the given file.
+        @param moduleReports per-module dependency-tree.json files, keyed by project
+     */
+    public void write(List<DependencyAnalysisResult> results, Map<MavenProject, File> moduleReports,
+                      int indexedJars, File outputFile) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("moduleCount", results.size());
+        root.put("indexedJars", indexedJars);
+
+        ArrayNode modules = root.putArray("modules");
+        for (DependencyAnalysisResult result : results) {
+            MavenProject project = result.project();
+            List<DependencyTreeNode> nodes = result.getAllNodes();
+
+            ObjectNode module = modules.addObject();
+            module.put("groupId", project.getGroupId());
+            module.put("artifactId", project.getArtifactId());
+            module.put("version", project.getVersion());
+            module.put("dependencyCount", result.dependencies().size());
+            module.put("nodeCount", nodes.size());
+            module.put("omittedCount", nodes.stream().filter(node -> node.isOmmitted).count());
+            if (result.classpathConflicts() != null) {
+                module.put("conflictingJarCount", result.classpathConflicts().getConflictingJarCount());
+                module.put("splitPackageJarCount", result.classpathConflicts().getSplitPackageJarCount());
+            }
+
+            ArrayNode unused = module.putArray("unused");
+            for (Artifact artifact : result.unusedArtifacts()) {
+                unused.add(artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion());
+            }
+
+            // Direkte Dependencies mit unpassendem Scope, z.B. compile aber nur von Tests benutzt
+            ArrayNode misplacedScopes = module.putArray("misplacedScopes");
+            for (DependencyTreeNode node : nodes) {
+                if (node.suggestedScope != null && node.node != null && node.node.getArtifact() != null) {
+                    ObjectNode misplaced = misplacedScopes.addObject();
+                    misplaced.put("artifact", node.node.getArtifact().getGroupId() + ":"
+                            + node.node.getArtifact().getArtifactId() + ":" + node.node.getArtifact().getVersion());
+                    misplaced.put("scope", node.getScope());
+                    misplaced.put("suggestedScope", node.suggestedScope);
+                }
+            }
+
+            File report = moduleReports.get(project);
+            module.put("report", report != null ? report.getAbsolutePath() : null);
+        }
+
+        mapper.writeValue(outputFile, root);
+    }
+}
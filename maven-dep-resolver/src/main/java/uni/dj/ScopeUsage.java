@@ -0,0 +1,72 @@
+package uni.dj;
+
+import org.apache.maven.artifact.Artifact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/*
+    Which code of the project uses the dependency JARs, keyed by the absolute path of the JAR
+    like DependencyTreeNode.pathToDependencyJar.
+        directMainJars: referenced by the main classes themselves
+        mainJars:       needed by the main classes, directly or through other used JARs
+        testJars:       needed by the test classes, directly or through other used JARs
+    A JAR in none of the sets is reported in unusedArtifacts.
+ */
+public record ScopeUsage(Set<Artifact> unusedArtifacts, Set<String> directMainJars, Set<String> mainJars,
+                         Set<String> testJars) {
+
+    /*
+        Copies the usage to the tree nodes and checks the declared scope of the direct dependencies:
+            compile/provided/system used only by test classes  -> test
+            runtime referenced by main classes                 -> compile
+            test referenced by main classes                    -> compile
+            test needed by main classes through other JARs     -> runtime
+        Omitted nodes are not on the classpath and are skipped.
+     */
+    public void applyTo(List<DependencyTreeNode> nodes) {
+        for (DependencyTreeNode node : nodes) {
+            if (node.isOmmitted || node.pathToDependencyJar == null) {
+                continue;
+            }
+            boolean main = mainJars.contains(node.pathToDependencyJar);
+            boolean test = testJars.contains(node.pathToDependencyJar);
+            node.usedBy = new ArrayList<>();
+            if (main) node.usedBy.add("main");
+            if (test) node.usedBy.add("test");
+
+            // Nur direkte Dependencies, transitive Scopes leitet Maven selbst ab
+            boolean direct = node.parent != null && node.parent.parent == null;
+            node.suggestedScope = direct ? suggestScope(node.getScope(), node.pathToDependencyJar, main, test) : null;
+        }
+    }
+
+    /*
+        @returns Number of tree nodes with a suggested scope.
+     */
+    public static int countMisplaced(List<DependencyTreeNode> nodes) {
+        int count = 0;
+        for (DependencyTreeNode node : nodes) {
+            if (node.suggestedScope != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+        @returns The scope the dependency should be declared with, or null if the declared scope fits.
+     */
+    private String suggestScope(String scope, String jar, boolean main, boolean test) {
+        if (scope == null) {
+            return null;
+        }
+        return switch (scope) {
+            case "compile", "provided", "system" -> !main && test ? "test" : null;
+            case "runtime" -> directMainJars.contains(jar) ? "compile" : null;
+            case "test" -> directMainJars.contains(jar) ? "compile" : main ? "runtime" : null;
+            default -> null;
+        };
+    }
+}
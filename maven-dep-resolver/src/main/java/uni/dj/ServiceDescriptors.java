@@ -0,0 +1,93 @@
+package uni.dj;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+    Parser for files that load classes by name instead of referencing them in bytecode:
+        META-INF/services/<interface>                         ServiceLoader
+        META-INF/spring.factories                             Spring factories (key=class,class,...)
+        META-INF/spring/<annotation>.imports                  Spring Boot auto-configuration imports
+    The key is the interface, factory or annotation the classes are registered for,
+    the providers are the registered classes. All names are returned as internal names (a/b/C).
+ */
+public final class ServiceDescriptors {
+
+    private static final String SERVICES = "META-INF/services/";
+    private static final String SPRING_FACTORIES = "META-INF/spring.factories";
+    private static final String SPRING_IMPORTS = "META-INF/spring/";
+
+    // Qualifizierter Java-Klassenname mit mindestens einem Paket, z.B. com.example.Foo oder com.example.Foo$Bar
+    private static final Pattern CLASS_NAME = Pattern.compile(
+            "\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*(\\.\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*)+");
+
+    private ServiceDescriptors() {
+    }
+
+    /*
+        @returns true if the JAR entry name or file path denotes a service descriptor.
+     */
+    public static boolean isDescriptor(String path) {
+        String name = path.replace('\\', '/');
+        int services = name.lastIndexOf(SERVICES);
+        if (services >= 0) {
+            return services + SERVICES.length() < name.length() && name.indexOf('/', services + SERVICES.length()) < 0;
+        }
+        return name.endsWith(SPRING_FACTORIES)
+                || (name.endsWith(".imports") && name.lastIndexOf(SPRING_IMPORTS) >= 0
+                && name.indexOf('/', name.lastIndexOf(SPRING_IMPORTS) + SPRING_IMPORTS.length()) < 0);
+    }
+
+    /*
+        Reads a service descriptor and adds its keys and registered classes.
+     */
+    public static void parse(String path, InputStream in, Set<String> keys, Set<String> providers) throws IOException {
+        String name = path.replace('\\', '/');
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+
+        if (name.endsWith(SPRING_FACTORIES)) {
+            Properties factories = new Properties();
+            factories.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            for (String key : factories.stringPropertyNames()) {
+                addClassName(key, keys);
+                for (String value : factories.getProperty(key).split(",")) {
+                    addClassName(value, providers);
+                }
+            }
+            return;
+        }
+
+        // META-INF/services/<Interface> und META-INF/spring/<Annotation>.imports: eine Klasse pro Zeile
+        addClassName(fileName.endsWith(".imports") ? fileName.substring(0, fileName.length() - ".imports".length())
+                : fileName, keys);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int comment = line.indexOf('#');
+            addClassName(comment >= 0 ? line.substring(0, comment) : line, providers);
+        }
+    }
+
+    /*
+        @returns true if the string looks like a fully qualified class name, e.g. a Class.forName() argument.
+     */
+    public static boolean isClassName(String value) {
+        return value.length() < 512 && CLASS_NAME.matcher(value).matches();
+    }
+
+    /*
+        Adds a binary class name as internal name, if it looks like a class name.
+     */
+    private static void addClassName(String value, Set<String> classNames) {
+        String className = value.trim();
+        if (isClassName(className)) {
+            classNames.add(className.replace('.', '/'));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package uni.dj;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+    Propagates usage along the references between dependency JARs.
+    A JAR the project does not reference directly is still needed if a used JAR references it,
+    e.g. the HTTP client a used REST library calls. Starting from the JARs the project uses,
+    the bytecode of every newly used JAR is scanned and the remaining candidates are checked
+    against the grown set of referenced classes, until no further JAR becomes used (fixpoint).
+
+    Only used JARs are ever scanned, the scans of one round run in parallel and every scan is
+    cached in the JarClassIndex, so a JAR shared by several modules is read only once per build.
+ */
+public class TransitiveUsageAnalyzer {
+
+    private final JarClassIndex jarClassIndex;
+    private final MavenLogger logger;
+
+    public TransitiveUsageAnalyzer(JarClassIndex jarClassIndex, MavenLogger logger) {
+        this.jarClassIndex = jarClassIndex;
+        this.logger = logger;
+    }
+
+    /*
+        Computes which of the candidate JARs are reachable from the used JARs.
+        @returns Map from each transitively used candidate to the JAR that references it,
+                 the value is null if the referencing JAR could not be determined (e.g. service usage).
+     */
+    public Map<File, File> propagate(UnusedDependencyAnalyzer projectUsage, Collection<File> usedJars,
+                                     Collection<File> candidateJars) {
+        Map<File, File> usedVia = new LinkedHashMap<>();
+        Set<File> remaining = new LinkedHashSet<>(candidateJars);
+        if (remaining.isEmpty()) {
+            return usedVia;
+        }
+
+        // Eigene Instanz, damit die Klassen des Projekts nicht mit denen der JARs vermischt werden
+        UnusedDependencyAnalyzer reachable = new UnusedDependencyAnalyzer(logger, jarClassIndex);
+        reachable.addUsedClasses(projectUsage.getUsedClasses());
+        reachable.addUsedModules(projectUsage.getUsedModules());
+        reachable.setTargetRelease(projectUsage.getTargetRelease());
+
+        List<File> frontier = usedJars.stream()
+                .filter(jar -> jar.isFile() && jar.getName().endsWith(".jar"))
+                .collect(Collectors.toList());
+        int rounds = 0;
+        while (!frontier.isEmpty() && !remaining.isEmpty()) {
+            rounds++;
+            Map<File, Set<String>> references = scan(frontier);
+            references.values().forEach(reachable::addUsedClasses);
+            frontier.forEach(jar -> reachable.addUsedModules(requiredModules(jar)));
+
+            List<File> next = new ArrayList<>();
+            for (Iterator<File> iterator = remaining.iterator(); iterator.hasNext(); ) {
+                File jar = iterator.next();
+                if (reachable.isDependencyUsed(jar)) {
+                    iterator.remove();
+                    next.add(jar);
+                    usedVia.put(jar, findReferrer(jar, references));
+                }
+            }
+            frontier = next;
+        }
+
+        logger.debug("Transitive usage: " + usedVia.size() + " JARs used by other dependencies ("
+                + rounds + " rounds)");
+        return usedVia;
+    }
+
+    /*
+        Scans the given JARs in parallel. A JAR that cannot be read keeps counting as used,
+        it just does not make any other JAR used.
+        @returns Map from JAR to the classes it references.
+     */
+    private Map<File, Set<String>> scan(List<File> jars) {
+        Map<File, Set<String>> references = jars.parallelStream().collect(Collectors.toMap(jar -> jar, jar -> {
+            try {
+                return jarClassIndex.getReferencedClasses(jar, logger);
+            } catch (Exception e) {
+                logger.warn("Error scanning JAR: " + jar.getName() + " - " + e.getMessage());
+                return Set.of();
+            }
+        }, (a, b) -> a));
+        // Reihenfolge der Runde beibehalten, damit findReferrer deterministisch ist
+        Map<File, Set<String>> ordered = new LinkedHashMap<>();
+        jars.forEach(jar -> ordered.put(jar, references.get(jar)));
+        return ordered;
+    }
+
+    /*
+        @returns The modules the module-info of the JAR requires, from the listing in the JarClassIndex.
+     */
+    private Set<String> requiredModules(File jar) {
+        try {
+            return jarClassIndex.getContents(jar).requiredModules();
+        } catch (Exception e) {
+            return Set.of();
+        }
+    }
+
+    /*
+        @returns The first scanned JAR that references a class of the given JAR, or null.
+     */
+    private File findReferrer(File jar, Map<File, Set<String>> references) {
+        try {
+            Set<String> classNames = jarClassIndex.getClassNames(jar);
+            for (Map.Entry<File, Set<String>> entry : references.entrySet()) {
+                for (String referenced : entry.getValue()) {
+                    if (classNames.contains(referenced)) {
+                        return entry.getKey();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("Error listing JAR: " + jar.getName() + " - " + e.getMessage());
+        }
+        return null;
+    }
+}
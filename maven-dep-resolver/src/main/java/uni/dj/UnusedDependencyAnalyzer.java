@@ -6,9 +6,12 @@ import org.objectweb.asm.*;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /*
     Analyzer that scans project bytecode and compares it against dependency JARs
@@ -17,7 +20,13 @@ import java.util.jar.JarFile;
 public class UnusedDependencyAnalyzer {
 
     private final MavenLogger logger;
-    private final Set<String> usedClasses = new HashSet<>();
+    private final JarClassIndex jarClassIndex;
+    private final Set<String> usedClasses = ConcurrentHashMap.newKeySet();
+    private final Set<String> usedModules = ConcurrentHashMap.newKeySet();
+    private volatile int targetRelease = Runtime.version().feature();
+    private final AtomicInteger scannedClassFiles = new AtomicInteger();
+    private volatile Set<String> usedPackages;
+    private volatile int usedPackagesSource;
 
     // Whitelist für bekannte false-positives
     private static final Set<String> COMPILE_ONLY_PATTERNS = Set.of(
@@ -26,7 +35,12 @@ public class UnusedDependencyAnalyzer {
     );
 
     public UnusedDependencyAnalyzer(MavenLogger logger) {
+        this(logger, new JarClassIndex());
+    }
+
+    public UnusedDependencyAnalyzer(MavenLogger logger, JarClassIndex jarClassIndex) {
         this.logger = logger;
+        this.jarClassIndex = jarClassIndex;
     }
 
     /*
@@ -43,6 +57,62 @@ public class UnusedDependencyAnalyzer {
         logger.info("Found " + usedClasses.size() + " used classes");
     }
 
+    /*
+        @returns Number of distinct classes referenced by the project bytecode.
+     */
+    public int getUsedClassCount() {
+        return usedClasses.size();
+    }
+
+    /*
+        @returns Unmodifiable view of the classes referenced by the scanned bytecode.
+     */
+    public Set<String> getUsedClasses() {
+        return Collections.unmodifiableSet(usedClasses);
+    }
+
+    /*
+        Adds classes referenced elsewhere, e.g. by an incrementally maintained ProjectUsageIndex.
+     */
+    void addUsedClasses(Collection<String> classNames) {
+        usedClasses.addAll(classNames);
+    }
+
+    /*
+        @returns Unmodifiable view of the modules required by the scanned module-info files.
+     */
+    public Set<String> getUsedModules() {
+        return Collections.unmodifiableSet(usedModules);
+    }
+
+    /*
+        Adds modules required elsewhere, e.g. by a used dependency JAR.
+     */
+    void addUsedModules(Collection<String> moduleNames) {
+        usedModules.addAll(moduleNames);
+    }
+
+    /*
+        @returns The Java release the classes of multi-release JARs are chosen for.
+     */
+    public int getTargetRelease() {
+        return targetRelease;
+    }
+
+    /*
+        Sets the Java release the project is compiled for, the running Java version by default.
+     */
+    public void setTargetRelease(int targetRelease) {
+        this.targetRelease = targetRelease;
+    }
+
+    /*
+        @returns Number of project .class files scanned.
+     */
+    public int getScannedClassFileCount() {
+        return scannedClassFiles.get();
+    }
+
     /*
         Recursively scans a directory for .class files.
      */
@@ -55,21 +125,73 @@ public class UnusedDependencyAnalyzer {
                 analyzeDirectory(file);
             } else if (file.getName().endsWith(".class")) {
                 analyzeClassFile(file);
+            } else if (ServiceDescriptors.isDescriptor(file.getPath())) {
+                analyzeDescriptorFile(file);
             }
         }
     }
 
+    /*
+        Reads a service descriptor of the project, the service and all registered classes count as used.
+     */
+    void analyzeDescriptorFile(File descriptorFile) throws Exception {
+        try (FileInputStream fis = new FileInputStream(descriptorFile)) {
+            ServiceDescriptors.parse(descriptorFile.getPath(), fis, usedClasses, usedClasses);
+        }
+    }
+
     /*
         Analyzes a single .class file using ASM.
      */
-    private void analyzeClassFile(File classFile) throws Exception {
+    void analyzeClassFile(File classFile) throws Exception {
+        scannedClassFiles.incrementAndGet();
         try (FileInputStream fis = new FileInputStream(classFile)) {
-            ClassReader reader = new ClassReader(fis);
-            ClassVisitor visitor = new DependencyCollector();
-            reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            if (ModuleDescriptors.isModuleInfo(classFile.getName())) {
+                ModuleDescriptors.read(fis, usedModules, usedClasses, usedClasses, usedClasses);
+            } else {
+                analyzeClass(fis);
+            }
         }
     }
 
+    /*
+        Analyzes all classes and service descriptors of a dependency JAR with the same collector
+        as the project bytecode. Used to find the JARs a used dependency needs itself.
+        The classes of all releases of a multi-release JAR are scanned, their references are merged.
+     */
+    void analyzeJarBytecode(File jarFile) throws Exception {
+        try (ZipFile jar = new ZipFile(jarFile)) {
+            Enumeration<? extends ZipEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                int release = ModuleDescriptors.releaseOf(name);
+                boolean classFile = name.endsWith(".class") && (release > 0 || !name.startsWith("META-INF"));
+                if (!classFile && !ServiceDescriptors.isDescriptor(name)) {
+                    continue;
+                }
+                try (InputStream in = jar.getInputStream(entry)) {
+                    if (classFile && ModuleDescriptors.isModuleInfo(name)) {
+                        ModuleDescriptors.read(in, usedModules, usedClasses, usedClasses, usedClasses);
+                    } else if (classFile) {
+                        analyzeClass(in);
+                    } else {
+                        ServiceDescriptors.parse(name, in, usedClasses, usedClasses);
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+        Runs the DependencyCollector over the bytecode of one class.
+     */
+    private void analyzeClass(InputStream in) throws Exception {
+        ClassReader reader = new ClassReader(in);
+        ClassVisitor visitor = new DependencyCollector();
+        reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+
     /*
         ASM ClassVisitor that collects all class references found in the bytecode.
      */
@@ -162,6 +284,16 @@ public class UnusedDependencyAnalyzer {
                     }
                 }
 
+                // Klassenliterale (Foo.class) und Strings wie bei Class.forName("com.example.Foo")
+                @Override
+                public void visitLdcInsn(Object value) {
+                    if (value instanceof Type type) {
+                        collectFromType(type);
+                    } else if (value instanceof String constant && ServiceDescriptors.isClassName(constant)) {
+                        usedClasses.add(constant.replace('.', '/'));
+                    }
+                }
+
                 @Override
                 public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
                     collectFromDescriptor(descriptor);
@@ -288,6 +420,33 @@ public class UnusedDependencyAnalyzer {
         });
     }
 
+    /*
+        Packages of the used classes. Classes are only ever added, so the cached set is valid
+        as long as the number of used classes did not change.
+        @returns Set of package internal names.
+     */
+    private Set<String> getUsedPackages() {
+        Set<String> packages = usedPackages;
+        if (packages == null || usedPackagesSource != usedClasses.size()) {
+            int size = usedClasses.size();
+            packages = new HashSet<>();
+            for (String className : usedClasses) {
+                packages.add(packageOf(className));
+            }
+            usedPackages = packages;
+            usedPackagesSource = size;
+        }
+        return packages;
+    }
+
+    /*
+        @returns The package of an internal class name, "" for the default package.
+     */
+    private static String packageOf(String className) {
+        int separator = className.lastIndexOf('/');
+        return separator > 0 ? className.substring(0, separator) : "";
+    }
+
     /*
         Checks if a JAR belongs to a known compile-only dependency (e.g., Lombok).
         @returns true if it is a compile-only dependency.
@@ -318,7 +477,8 @@ public class UnusedDependencyAnalyzer {
         }
 
         try {
-            Set<String> jarClasses = extractClassNamesFromJar(dependencyJar);
+            JarClassIndex.JarContents contents = jarClassIndex.getContents(dependencyJar);
+            Set<String> jarClasses = contents.classNames(targetRelease);
 
             for (String jarClass : jarClasses) {
                 if (usedClasses.contains(jarClass)) {
@@ -327,6 +487,20 @@ public class UnusedDependencyAnalyzer {
                 }
             }
 
+            // Modulsystem: requires, oder exports/opens an das Modul (z.B. fuer Reflection)
+            if (contents.moduleName() != null && usedModules.contains(contents.moduleName())) {
+                logger.debug("Dependency used: " + dependencyJar.getName() + " (module: " + contents.moduleName() + ")");
+                return true;
+            }
+
+            // Ueber ServiceLoader/Spring geladen: das JAR registriert Klassen fuer einen Service, den das Projekt benutzt
+            for (String serviceKey : contents.serviceKeys()) {
+                if (usedClasses.contains(serviceKey) || getUsedPackages().contains(packageOf(serviceKey))) {
+                    logger.debug("Dependency used: " + dependencyJar.getName() + " (service: " + serviceKey + ")");
+                    return true;
+                }
+            }
+
             logger.debug("Dependency POTENTIALLY UNUSED: " + dependencyJar.getName()
                     + " (may be used via reflection/constants)");
             return false;
@@ -336,28 +510,4 @@ public class UnusedDependencyAnalyzer {
             return true; // Bei Fehlern als "used" annehmen
         }
     }
-
-    /*
-        Extracts all class names present in a JAR file.
-        @returns Set of class internal names.
-     */
-    private Set<String> extractClassNamesFromJar(File jarFile) throws Exception {
-        Set<String> classNames = new HashSet<>();
-
-        try (JarFile jar = new JarFile(jarFile)) {
-            Enumeration<JarEntry> entries = jar.entries();
-
-            while (entries.hasMoreElements()) {
-                JarEntry entry = entries.nextElement();
-                String name = entry.getName();
-
-                if (name.endsWith(".class") && !name.startsWith("META-INF")) {
-                    String className = name.replace(".class", "");
-                    classNames.add(className);
-                }
-            }
-        }
-
-        return classNames;
-    }
 }
\ No newline at end of file
@@ -6,54 +6,156 @@ import org.apache.maven.artifact.handler.DefaultArtifactHandler;
 import org.apache.maven.project.MavenProject;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /*
     Service for analyzing which dependencies are actually used by the project's bytecode
  */
-public record UnusedDependencyService(MavenProject project, MavenLogger logger) {
+public record UnusedDependencyService(MavenProject project, MavenLogger logger, JarClassIndex jarClassIndex) {
+
+    public UnusedDependencyService(MavenProject project, MavenLogger logger) {
+        this(project, logger, new JarClassIndex());
+    }
 
     /*
-        Analyzes a list of dependency JARs to determine if they are used by the project
+        Analyzes a list of dependency JARs to determine if they are used by the project's main or test classes
         @returns Set of unused artifacts
      */
     public Set<Artifact> analyzeUnusedDependencies(List<File> dependencyJars) throws Exception {
+        return checkDependencies(analyzeProjectUsage(), analyzeTestUsage(), dependencyJars).unusedArtifacts();
+    }
+
+    /*
+        Scans the project's bytecode. Does not depend on the dependency collection,
+        so it can run at the same time.
+        @returns Analyzer holding the classes used by the project
+     */
+    public UnusedDependencyAnalyzer analyzeProjectUsage() throws Exception {
         File classesDir = new File(project.getBuild().getOutputDirectory());
-        UnusedDependencyAnalyzer analyzer = new UnusedDependencyAnalyzer(logger);
+        UnusedDependencyAnalyzer analyzer = new UnusedDependencyAnalyzer(logger, jarClassIndex);
+        analyzer.setTargetRelease(getTargetRelease());
 
         logger.info("=== Analyzing Project Bytecode ===");
         analyzer.analyzeProjectUsage(classesDir);
+        return analyzer;
+    }
+
+    /*
+        Scans the bytecode of the project's test classes. Independent of analyzeProjectUsage(),
+        both scans can run at the same time.
+        @returns Analyzer holding the classes used by the tests, empty if there are no test classes
+     */
+    public UnusedDependencyAnalyzer analyzeTestUsage() throws Exception {
+        UnusedDependencyAnalyzer analyzer = new UnusedDependencyAnalyzer(logger, jarClassIndex);
+        analyzer.setTargetRelease(getTargetRelease());
+        String testOutputDirectory = project.getBuild().getTestOutputDirectory();
+        // Projekte ohne Tests haben kein test-classes Verzeichnis, das ist kein Fehler
+        if (testOutputDirectory != null && new File(testOutputDirectory).isDirectory()) {
+            logger.info("=== Analyzing Test Bytecode ===");
+            analyzer.analyzeProjectUsage(new File(testOutputDirectory));
+        }
+        return analyzer;
+    }
+
+    /*
+        Reads the Java release the project is compiled for from maven.compiler.release or
+        maven.compiler.target ("1.8" is release 8), the running Java version if neither is set.
+        Selects the classes of multi-release JARs the project sees.
+        @returns The target release.
+     */
+    public int getTargetRelease() {
+        for (String property : new String[]{"maven.compiler.release", "maven.compiler.target"}) {
+            String value = project.getProperties().getProperty(property);
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            String release = value.trim().startsWith("1.") ? value.trim().substring(2) : value.trim();
+            try {
+                return Integer.parseInt(release);
+            } catch (NumberFormatException e) {
+                // z.B. ${java.version}, nicht aufgeloeste Properties ignorieren
+                logger.debug("Ignoring " + property + "=" + value);
+            }
+        }
+        return Runtime.version().feature();
+    }
 
+    /*
+        Checks the dependency JARs against the classes used by the main and the test classes.
+        A JAR not referenced by the project still counts as used if a used JAR references it.
+        @returns ScopeUsage with the unused artifacts and the JARs used per scope
+     */
+    public ScopeUsage checkDependencies(UnusedDependencyAnalyzer mainUsage, UnusedDependencyAnalyzer testUsage,
+                                        List<File> dependencyJars) {
         logger.info("=== Checking All Dependencies (Direct + Transitive) ===");
         Set<Artifact> unusedArtifacts = new HashSet<>();
 
-        int usedCount = 0;
-        int unusedCount = 0;
-
+        List<File> jars = new ArrayList<>();
+        List<File> mainJars = new ArrayList<>();
+        List<File> testJars = new ArrayList<>();
         for (File jarFile : dependencyJars) {
             if (jarFile.exists() && jarFile.getName().endsWith(".jar")) {
-                boolean isUsed = analyzer.isDependencyUsed(jarFile);
-                String artifactInfo = extractArtifactInfo(jarFile);
-
-                if (!isUsed) {
-                    logger.warn("  UNUSED: " + artifactInfo);
-                    Artifact mvnArtifact = createMavenArtifact(jarFile);
-                    if (mvnArtifact != null) {
-                        unusedArtifacts.add(mvnArtifact);
-                    }
-                    unusedCount++;
-                } else {
-                    logger.debug("  USED: " + artifactInfo);
-                    usedCount++;
+                jars.add(jarFile);
+                if (mainUsage.isDependencyUsed(jarFile)) {
+                    mainJars.add(jarFile);
+                }
+                if (testUsage.getUsedClassCount() > 0 && testUsage.isDependencyUsed(jarFile)) {
+                    testJars.add(jarFile);
                 }
             }
         }
 
+        TransitiveUsageAnalyzer transitiveUsage = new TransitiveUsageAnalyzer(jarClassIndex, logger);
+        Map<File, File> mainTransitive = transitiveUsage.propagate(mainUsage, mainJars, without(jars, mainJars));
+        // Die JARs der Main-Klassen sind schon gescannt, die Test-Runde liest sie aus dem Index
+        Map<File, File> testTransitive = testJars.isEmpty() ? Map.of()
+                : transitiveUsage.propagate(testUsage, testJars, without(jars, testJars));
+
+        Set<String> directMainPaths = new HashSet<>();
+        Set<String> mainPaths = new HashSet<>();
+        Set<String> testPaths = new HashSet<>();
+        mainJars.forEach(jar -> directMainPaths.add(jar.getAbsolutePath()));
+        mainPaths.addAll(directMainPaths);
+        mainTransitive.keySet().forEach(jar -> mainPaths.add(jar.getAbsolutePath()));
+        testJars.forEach(jar -> testPaths.add(jar.getAbsolutePath()));
+        testTransitive.keySet().forEach(jar -> testPaths.add(jar.getAbsolutePath()));
+
+        int usedCount = 0;
+        int testOnlyCount = 0;
+        int unusedCount = 0;
+        for (File jarFile : jars) {
+            String path = jarFile.getAbsolutePath();
+            String artifactInfo = extractArtifactInfo(jarFile);
+            if (directMainPaths.contains(path)) {
+                logger.debug("  USED: " + artifactInfo);
+                usedCount++;
+            } else if (mainPaths.contains(path)) {
+                File via = mainTransitive.get(jarFile);
+                logger.debug("  USED (transitively" + (via != null ? " via " + extractArtifactInfo(via) : "")
+                        + "): " + artifactInfo);
+                usedCount++;
+            } else if (testPaths.contains(path)) {
+                logger.debug("  USED (tests only): " + artifactInfo);
+                usedCount++;
+                testOnlyCount++;
+            } else {
+                logger.warn("  UNUSED: " + artifactInfo);
+                Artifact mvnArtifact = createMavenArtifact(jarFile);
+                if (mvnArtifact != null) {
+                    unusedArtifacts.add(mvnArtifact);
+                }
+                unusedCount++;
+            }
+        }
+
         logger.info("=== Dependency Analysis Complete ===");
         logger.info("Total Dependencies Analyzed: " + dependencyJars.size());
-        logger.info("Used Dependencies: " + usedCount);
+        logger.info("Used Dependencies: " + usedCount + " (" + mainTransitive.size()
+                + " only through other dependencies, " + testOnlyCount + " only by tests)");
         logger.info("Unused Dependencies: " + unusedCount);
 
         if (unusedCount > 0) {
@@ -62,7 +164,21 @@ public record UnusedDependencyService(MavenProject project, MavenLogger logger)
             logger.info("✅ All dependencies are being used!");
         }
 
-        return unusedArtifacts;
+        return new ScopeUsage(unusedArtifacts, directMainPaths, mainPaths, testPaths);
+    }
+
+    /*
+        @returns The JARs of the first list that are not in the second one.
+     */
+    private static List<File> without(List<File> jars, List<File> excluded) {
+        Set<File> excludedSet = new HashSet<>(excluded);
+        List<File> remaining = new ArrayList<>();
+        for (File jar : jars) {
+            if (!excludedSet.contains(jar)) {
+                remaining.add(jar);
+            }
+        }
+        return remaining;
     }
 
     /*
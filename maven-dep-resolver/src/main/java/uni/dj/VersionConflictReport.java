@@ -0,0 +1,225 @@
+package uni.dj;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/*
+    Version conflicts of one or more modules as a table instead of log output.
+    One entry per groupId:artifactId and winning version, with every requested version, the modules
+    and the deduplicated paths that requested it. A conflict is a downgrade if the winner is older
+    than one of the requested versions.
+    Built in a single pass over the tree nodes: the winner of an omitted node is read from the node itself,
+    no node has to be looked up.
+ */
+public class VersionConflictReport {
+
+    // Beispielpfade pro Version, gezaehlt werden alle
+    private static final int MAX_PATHS = 5;
+
+    // 1.0 und 1.0.0 sind fuer Maven gleich, bleiben hier aber getrennte Zeilen
+    private static final Comparator<String> VERSION_ORDER = Comparator.comparing(ComparableVersion::new)
+            .thenComparing(Comparator.naturalOrder());
+
+    /*
+        A version of the artifact requested somewhere in the tree.
+     */
+    private static class RequestedVersion {
+        final Set<String> paths = new LinkedHashSet<>();
+        final Set<String> modules = new TreeSet<>();
+    }
+
+    /*
+        All requests of one groupId:artifactId that resolved to the same winner.
+     */
+    private static class Conflict {
+        final String groupId;
+        final String artifactId;
+        final String winner;
+        final TreeMap<String, RequestedVersion> versions = new TreeMap<>(VERSION_ORDER);
+
+        Conflict(String groupId, String artifactId, String winner) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.winner = winner;
+        }
+
+        boolean isConflict() {
+            return versions.size() > 1;
+        }
+
+        boolean isDowngrade() {
+            return isNewer(versions.lastKey(), winner);
+        }
+
+        Set<String> modules() {
+            Set<String> modules = new TreeSet<>();
+            versions.values().forEach(version -> modules.addAll(version.modules));
+            return modules;
+        }
+    }
+
+    private final Map<String, Conflict> entries = new TreeMap<>();
+
+    /*
+        Adds the nodes of a module's dependency tree, as returned by OmittedDependencyFinder.getAllNodes().
+     */
+    public synchronized void add(String module, List<DependencyTreeNode> nodes) {
+        for (DependencyTreeNode node : nodes) {
+            if (node.parent == null || node.node == null || node.node.getArtifact() == null) {
+                continue;
+            }
+            Artifact artifact = node.node.getArtifact();
+            Object winnerNode = node.node.getData().get(ConflictResolver.NODE_DATA_WINNER);
+            String winner = winnerNode instanceof DependencyNode resolved && resolved.getArtifact() != null
+                    ? resolved.getArtifact().getVersion() : artifact.getVersion();
+
+            String key = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + winner;
+            Conflict conflict = entries.computeIfAbsent(key,
+                    k -> new Conflict(artifact.getGroupId(), artifact.getArtifactId(), winner));
+            RequestedVersion requested = conflict.versions.computeIfAbsent(artifact.getVersion(),
+                    k -> new RequestedVersion());
+            requested.paths.add(pathOf(node.parent));
+            requested.modules.add(module);
+        }
+    }
+
+    /*
+        @returns Number of artifacts requested in more than one version.
+     */
+    public synchronized int getConflictCount() {
+        return (int) entries.values().stream().filter(Conflict::isConflict).count();
+    }
+
+    /*
+        @returns Number of conflicts whose winner is older than a requested version.
+     */
+    public synchronized int getDowngradeCount() {
+        return (int) entries.values().stream().filter(c -> c.isConflict() && c.isDowngrade()).count();
+    }
+
+    /*
+        Writes the conflicts as JSON, downgrades first.
+     */
+    public synchronized void writeJson(File outputFile) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("conflictCount", getConflictCount());
+        root.put("downgradeCount", getDowngradeCount());
+
+        ArrayNode conflicts = root.putArray("conflicts");
+        for (Conflict conflict : sortedConflicts()) {
+            ObjectNode entry = conflicts.addObject();
+            entry.put("groupId", conflict.groupId);
+            entry.put("artifactId", conflict.artifactId);
+            entry.put("winner", conflict.winner);
+            entry.put("downgrade", conflict.isDowngrade());
+            ArrayNode modules = entry.putArray("modules");
+            conflict.modules().forEach(modules::add);
+
+            ArrayNode versions = entry.putArray("versions");
+            conflict.versions.forEach((version, requested) -> {
+                ObjectNode versionEntry = versions.addObject();
+                versionEntry.put("version", version);
+                versionEntry.put("newerThanWinner", isNewer(version, conflict.winner));
+                versionEntry.put("pathCount", requested.paths.size());
+                ArrayNode paths = versionEntry.putArray("paths");
+                requested.paths.stream().limit(MAX_PATHS).forEach(paths::add);
+            });
+        }
+        mapper.writeValue(outputFile, root);
+    }
+
+    /*
+        Writes the conflicts as CSV, one row per conflict and requested version.
+     */
+    public synchronized void writeCsv(File outputFile) throws IOException {
+        try (Writer out = Files.newBufferedWriter(outputFile.toPath(), StandardCharsets.UTF_8)) {
+            out.write("groupId,artifactId,winner,downgrade,requestedVersion,newerThanWinner,modules,pathCount,examplePath\n");
+            for (Conflict conflict : sortedConflicts()) {
+                String modules = String.join(";", conflict.modules());
+                for (Map.Entry<String, RequestedVersion> version : conflict.versions.entrySet()) {
+                    RequestedVersion requested = version.getValue();
+                    out.write(String.join(",", csv(conflict.groupId), csv(conflict.artifactId), csv(conflict.winner),
+                            String.valueOf(conflict.isDowngrade()), csv(version.getKey()),
+                            String.valueOf(isNewer(version.getKey(), conflict.winner)), csv(modules),
+                            String.valueOf(requested.paths.size()), csv(requested.paths.iterator().next())));
+                    out.write("\n");
+                }
+            }
+        }
+    }
+
+    /*
+        @returns The real conflicts, downgrades first, then by groupId:artifactId.
+     */
+    private List<Conflict> sortedConflicts() {
+        List<Conflict> conflicts = new ArrayList<>();
+        for (Conflict conflict : entries.values()) {
+            if (conflict.isConflict()) {
+                conflicts.add(conflict);
+            }
+        }
+        conflicts.sort(Comparator.comparing((Conflict conflict) -> !conflict.isDowngrade()));
+        return conflicts;
+    }
+
+    /*
+        @returns The path from the module's direct dependency down to the given node, e.g. "g:a:1 > g:b:2".
+     */
+    private static String pathOf(DependencyTreeNode node) {
+        List<String> path = new ArrayList<>();
+        for (DependencyTreeNode current = node; current != null && current.parent != null; current = current.parent) {
+            Artifact artifact = current.node != null ? current.node.getArtifact() : null;
+            path.add(artifact != null
+                    ? artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion()
+                    : current.getName() + ":" + current.getVersion());
+        }
+        if (path.isEmpty()) {
+            return "(direct)";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = path.size() - 1; i >= 0; i--) {
+            builder.append(path.get(i));
+            if (i > 0) {
+                builder.append(" > ");
+            }
+        }
+        return builder.toString();
+    }
+
+    /*
+        @returns true if version is newer than other by Maven's version ordering.
+     */
+    private static boolean isNewer(String version, String other) {
+        return new ComparableVersion(version).compareTo(new ComparableVersion(other)) > 0;
+    }
+
+    /*
+        Quotes a CSV value if it contains a separator or a quote.
+     */
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
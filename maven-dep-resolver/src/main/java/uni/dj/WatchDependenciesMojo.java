@@ -0,0 +1,130 @@
+package uni.dj;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.settings.Settings;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+
+import java.io.File;
+
+/*
+    Mojo that watches pom.xml and the compiled classes and keeps dependency-tree.json up to date.
+    A POM change collects the dependencies again, changed class files are scanned again on their own.
+    dependency-tree.json is replaced atomically, so the IDE never reads a half-written file.
+    Runs until Maven is stopped.
+ */
+@Mojo(name = "watch", threadSafe = true)
+public class WatchDependenciesMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${settings}", required = true, readonly = true)
+    Settings settings;
+    @Component
+    private RepositorySystem repoSystem;
+
+    @Component
+    private ProjectBuilder projectBuilder;
+
+    @Parameter(defaultValue = "${repositorySystemSession}", readonly = true)
+    private RepositorySystemSession repoSession;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession mavenSession;
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    private File outputDirectory;
+
+    /*
+        Time in milliseconds without further changes before the analysis is updated.
+     */
+    @Parameter(property = "dep-resolver.debounce", defaultValue = "300")
+    private long debounce;
+
+    /*
+        Main execution point for the Mojo.
+        Writes the initial dependency tree and updates it on every change.
+     */
+    @Override
+    public void execute() throws MojoExecutionException {
+        MavenLogger logger = new MojoMavenLogger(getLog());
+
+        File m2Repo;
+        if (settings.getLocalRepository() != null) {
+            m2Repo = new File(settings.getLocalRepository());
+        } else {
+            throw new IllegalStateException("Local repository path is not set in Maven settings.");
+        }
+
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession(repoSession);
+        session.setLocalRepositoryManager(repoSession.getLocalRepositoryManager());
+        session.setConfigProperty(ConflictResolver.CONFIG_PROP_VERBOSE, true);
+
+        IncrementalDependencyAnalysis analysis = new IncrementalDependencyAnalysis(project, this::reloadProject,
+                new DependencyService(repoSystem, session),
+                ArtifactPathResolver.forSession(m2Repo, logger, repoSession),
+                JarClassIndex.forSession(repoSession), logger);
+
+        File outputFile = new File(outputDirectory, "dependency-tree.json");
+        File classesDirectory = new File(project.getBuild().getOutputDirectory());
+
+        try (ProjectWatcher watcher = new ProjectWatcher(project.getFile(), classesDirectory)) {
+            writeTree(analysis.refresh(), outputFile, logger);
+            logger.info("Watching " + project.getFile() + " and " + classesDirectory + " for changes");
+
+            while (!Thread.currentThread().isInterrupted()) {
+                ProjectWatcher.Changes changes = watcher.take(debounce);
+                try {
+                    IncrementalDependencyAnalysis.Refresh refresh = analysis.refresh(changes.pomChanged(),
+                            changes.fullRescan() ? null : changes.classFiles());
+                    if (refresh.changed()) {
+                        writeTree(refresh, outputFile, logger);
+                    }
+                } catch (Exception e) {
+                    // Z.B. ein halb gespeichertes pom.xml, beim naechsten Speichern erneut versuchen
+                    logger.warn("Failed to update the dependency analysis: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to watch dependencies", e);
+        }
+    }
+
+    /*
+        Replaces dependency-tree.json with the current result.
+     */
+    private void writeTree(IncrementalDependencyAnalysis.Refresh refresh, File outputFile, MavenLogger logger)
+            throws Exception {
+        if (!outputDirectory.exists()) {
+            outputDirectory.mkdirs();
+        }
+        new DependencyTreeJsonWriter().writeAtomically(refresh.result().getAllNodes(), outputFile);
+        logger.info("Dependency tree written to " + outputFile.getAbsolutePath());
+    }
+
+    /*
+        Builds the project again from its pom.xml, without resolving its dependencies.
+        @returns The reloaded project.
+     */
+    private MavenProject reloadProject() throws Exception {
+        ProjectBuildingRequest request = new DefaultProjectBuildingRequest(mavenSession.getProjectBuildingRequest());
+        request.setRepositorySession(repoSession);
+        request.setProcessPlugins(false);
+        request.setResolveDependencies(false);
+        return projectBuilder.build(project.getFile(), request).getProject();
+    }
+}
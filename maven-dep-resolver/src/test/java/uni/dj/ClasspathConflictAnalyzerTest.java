@@ -0,0 +1,119 @@
+package uni.dj;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ClasspathConflictAnalyzerTest {
+
+    private static final MavenLogger SILENT = new MavenLogger() {
+        @Override
+        public void info(String msg) {
+        }
+
+        @Override
+        public void debug(String msg) {
+        }
+
+        @Override
+        public void warn(String msg) {
+        }
+
+        @Override
+        public void error(String msg) {
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void findsDuplicateClassesAndSplitPackages() throws Exception {
+        File a = jar("a.jar", "com/x/Same.class", "same", "com/x/Diff.class", "one", "com/x/OnlyA.class", "a");
+        File b = jar("b.jar", "com/x/Same.class", "same", "com/x/Diff.class", "two");
+        File c = jar("c.jar", "com/x/OnlyC.class", "c");
+        File d = jar("d.jar", "org/y/Other.class", "d");
+        // an omitted version is not on the classpath
+        File e = jar("e.jar", "com/x/Same.class", "other version", "org/y/Other.class", "e");
+
+        List<DependencyTreeNode> nodes = new ArrayList<>();
+        DependencyTreeNode root = node(nodes, null, "g:app:1.0", null, false);
+        node(nodes, root, "g:a:1.0", a, false);
+        node(nodes, root, "g:b:1.0", b, false);
+        DependencyTreeNode cNode = node(nodes, root, "g:c:1.0", c, false);
+        node(nodes, root, "g:d:1.0", d, false);
+        node(nodes, root, "g:e:0.9", e, true);
+
+        ClasspathConflicts conflicts = new ClasspathConflictAnalyzer(new JarClassIndex(), SILENT).analyze(nodes);
+
+        Assert.assertEquals(2, conflicts.getConflictingJarCount());
+        Assert.assertEquals(List.of(new ClasspathConflicts.JarConflict("g:b:1.0", b.getPath(), 2, 1,
+                List.of("com/x/Diff", "com/x/Same"))), conflicts.conflictsByJar().get(a.getPath()));
+        Assert.assertEquals(List.of(new ClasspathConflicts.JarConflict("g:a:1.0", a.getPath(), 2, 1,
+                List.of("com/x/Diff", "com/x/Same"))), conflicts.conflictsByJar().get(b.getPath()));
+        Assert.assertNull(conflicts.conflictsByJar().get(c.getPath()));
+
+        Assert.assertEquals(3, conflicts.getSplitPackageJarCount());
+        Assert.assertEquals(List.of("com/x"), conflicts.splitPackagesByJar().get(c.getPath()));
+        Assert.assertNull(conflicts.splitPackagesByJar().get(d.getPath()));
+
+        conflicts.applyTo(nodes);
+        Assert.assertEquals(List.of(), cNode.duplicateClasses);
+        Assert.assertEquals(List.of("com/x"), cNode.splitPackages);
+    }
+
+    @Test
+    public void identicalCopiesAreDuplicatesWithoutDifferences() throws Exception {
+        File a = jar("a.jar", "com/x/Same.class", "same");
+        File b = jar("b.jar", "com/x/Same.class", "same");
+
+        List<DependencyTreeNode> nodes = new ArrayList<>();
+        DependencyTreeNode root = node(nodes, null, "g:app:1.0", null, false);
+        node(nodes, root, "g:a:1.0", a, false);
+        node(nodes, root, "g:b:1.0", b, false);
+
+        ClasspathConflicts conflicts = new ClasspathConflictAnalyzer(new JarClassIndex(), SILENT).analyze(nodes);
+
+        ClasspathConflicts.JarConflict conflict = conflicts.conflictsByJar().get(a.getPath()).get(0);
+        Assert.assertEquals(1, conflict.duplicateClasses());
+        Assert.assertEquals(0, conflict.differentClasses());
+    }
+
+    /*
+        Writes a JAR with the given entry names and contents, only the listing and the CRC of an entry matter.
+     */
+    private File jar(String name, String... entries) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < entries.length; i += 2) {
+                out.putNextEntry(new ZipEntry(entries[i]));
+                out.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static DependencyTreeNode node(List<DependencyTreeNode> nodes, DependencyTreeNode parent,
+                                           String coordinates, File jar, boolean omitted) {
+        DependencyTreeNode node = new DependencyTreeNode();
+        node.parent = parent;
+        node.node = new DefaultDependencyNode(new Dependency(new DefaultArtifact(coordinates), "compile"));
+        node.isOmmitted = omitted;
+        node.pathToDependencyJar = jar != null ? jar.getPath() : null;
+        nodes.add(node);
+        return node;
+    }
+}
@@ -0,0 +1,98 @@
+package uni.dj;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class JarClassIndexTest {
+
+    private static final byte[] CLASS = new byte[]{1};
+    private static final byte[] MANIFEST = "Manifest-Version: 1.0\nAutomatic-Module-Name: com.example.auto\n\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void choosesTheLowestReleaseOfVersionedClasses() throws Exception {
+        File jar = jar("multi.jar",
+                "a/Base.class", CLASS,
+                "META-INF/versions/17/a/New.class", CLASS,
+                "META-INF/versions/11/a/New.class", CLASS,
+                // a versioned copy of a base class does not change the classes of the JAR
+                "META-INF/versions/11/a/Base.class", CLASS,
+                "META-INF/versions/next/a/Ignored.class", CLASS);
+
+        JarClassIndex.JarContents contents = new JarClassIndex().getContents(jar);
+
+        Assert.assertEquals(Set.of("a/Base"), contents.classNames());
+        Assert.assertEquals(Map.of("a/New", 11), contents.releaseClasses());
+        Assert.assertEquals(Set.of("a/Base"), contents.classNames(8));
+        Assert.assertEquals(Set.of("a/Base", "a/New"), contents.classNames(11));
+    }
+
+    @Test
+    public void readsTheModuleInfoOfTheLowestRelease() throws Exception {
+        File jar = jar("versioned-module.jar",
+                "META-INF/MANIFEST.MF", MANIFEST,
+                "META-INF/versions/11/module-info.class", ModuleDescriptorsTest.moduleInfo("mod.v11", "org.v11"),
+                "META-INF/versions/9/module-info.class", ModuleDescriptorsTest.moduleInfo("mod.v9", "org.v9"),
+                "a/module-info.class", ModuleDescriptorsTest.moduleInfo("mod.nested", "org.nested"));
+
+        JarClassIndex.JarContents contents = new JarClassIndex().getContents(jar);
+
+        Assert.assertEquals("mod.v9", contents.moduleName());
+        Assert.assertEquals(Set.of("org.v9", "org.friend"), contents.requiredModules());
+    }
+
+    @Test
+    public void prefersTheRootModuleInfoOverVersionedOnesAndTheManifest() throws Exception {
+        File jar = jar("module.jar",
+                "META-INF/versions/9/module-info.class", ModuleDescriptorsTest.moduleInfo("mod.v9", "org.v9"),
+                "module-info.class", ModuleDescriptorsTest.moduleInfo("mod.root", "org.root"),
+                "META-INF/MANIFEST.MF", MANIFEST);
+
+        JarClassIndex.JarContents contents = new JarClassIndex().getContents(jar);
+
+        Assert.assertEquals("mod.root", contents.moduleName());
+        Assert.assertEquals(Set.of("org.root", "org.friend"), contents.requiredModules());
+        Assert.assertEquals(Set.of("com/example/Spi"), contents.serviceKeys());
+        Assert.assertEquals(Set.of("com/example/Impl"), contents.serviceProviders());
+    }
+
+    @Test
+    public void usesTheAutomaticModuleNameWithoutModuleInfo() throws Exception {
+        File jar = jar("automatic.jar", "META-INF/MANIFEST.MF", MANIFEST, "a/B.class", CLASS);
+
+        JarClassIndex.JarContents contents = new JarClassIndex().getContents(jar);
+
+        Assert.assertEquals("com.example.auto", contents.moduleName());
+        Assert.assertTrue(contents.requiredModules().isEmpty());
+
+        Assert.assertNull(new JarClassIndex().getContents(jar("plain.jar", "a/B.class", CLASS)).moduleName());
+    }
+
+    /*
+        Writes a JAR with the given entry names and contents, in this order.
+     */
+    private File jar(String name, Object... entries) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < entries.length; i += 2) {
+                out.putNextEntry(new ZipEntry((String) entries[i]));
+                out.write((byte[]) entries[i + 1]);
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+}
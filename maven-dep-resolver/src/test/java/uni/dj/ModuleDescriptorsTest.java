@@ -0,0 +1,84 @@
+package uni.dj;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class ModuleDescriptorsTest {
+
+    @Test
+    public void readsReleasesOfVersionedEntries() {
+        Assert.assertEquals(0, ModuleDescriptors.releaseOf("a/B.class"));
+        Assert.assertEquals(11, ModuleDescriptors.releaseOf("META-INF/versions/11/a/B.class"));
+        Assert.assertEquals(-1, ModuleDescriptors.releaseOf("META-INF/versions/eleven/a/B.class"));
+        Assert.assertEquals(-1, ModuleDescriptors.releaseOf("META-INF/versions/0/a/B.class"));
+        Assert.assertEquals(-1, ModuleDescriptors.releaseOf("META-INF/versions/11"));
+
+        Assert.assertEquals("a/B.class", ModuleDescriptors.stripRelease("META-INF/versions/11/a/B.class"));
+        Assert.assertEquals("META-INF/versions/x/a/B.class",
+                ModuleDescriptors.stripRelease("META-INF/versions/x/a/B.class"));
+    }
+
+    @Test
+    public void recognizesModuleInfo() {
+        Assert.assertTrue(ModuleDescriptors.isModuleInfo("module-info.class"));
+        Assert.assertTrue(ModuleDescriptors.isModuleInfo("target\\classes\\module-info.class"));
+        Assert.assertFalse(ModuleDescriptors.isModuleInfo("a/my-module-info.class"));
+    }
+
+    @Test
+    public void readsModuleDeclaration() throws Exception {
+        Set<String> requiredModules = new TreeSet<>();
+        Set<String> usedServices = new TreeSet<>();
+        Set<String> providedServices = new TreeSet<>();
+        Set<String> providers = new TreeSet<>();
+
+        String name = ModuleDescriptors.read(new ByteArrayInputStream(moduleInfo("com.example.lib", "org.other")),
+                requiredModules, usedServices, providedServices, providers);
+
+        Assert.assertEquals("com.example.lib", name);
+        // java.base and the export to jdk.internal are platform modules
+        Assert.assertEquals(Set.of("org.other", "org.friend"), requiredModules);
+        Assert.assertEquals(Set.of("com/example/Spi"), usedServices);
+        Assert.assertEquals(Set.of("com/example/Spi"), providedServices);
+        Assert.assertEquals(Set.of("com/example/Impl"), providers);
+    }
+
+    @Test
+    public void readsAutomaticModuleName() throws Exception {
+        Assert.assertEquals("com.example.auto", ModuleDescriptors.automaticModuleName(manifest(
+                "Manifest-Version: 1.0\nAutomatic-Module-Name: com.example.auto \n\n")));
+        Assert.assertNull(ModuleDescriptors.automaticModuleName(manifest(
+                "Manifest-Version: 1.0\nAutomatic-Module-Name: \n\n")));
+        Assert.assertNull(ModuleDescriptors.automaticModuleName(manifest("Manifest-Version: 1.0\n\n")));
+    }
+
+    /*
+        @returns A module-info.class of the given module, requiring java.base and the given module.
+     */
+    static byte[] moduleInfo(String name, String requiredModule) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V9, Opcodes.ACC_MODULE, "module-info", null, null, null);
+        ModuleVisitor module = writer.visitModule(name, 0, null);
+        module.visitRequire("java.base", Opcodes.ACC_MANDATED, null);
+        module.visitRequire(requiredModule, 0, null);
+        module.visitExport("com/example/api", 0, "org.friend", "jdk.internal");
+        module.visitExport("com/example/open", 0);
+        module.visitUse("com/example/Spi");
+        module.visitProvide("com/example/Spi", "com/example/Impl");
+        module.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static ByteArrayInputStream manifest(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
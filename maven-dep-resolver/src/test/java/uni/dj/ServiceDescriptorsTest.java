@@ -0,0 +1,82 @@
+package uni.dj;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class ServiceDescriptorsTest {
+
+    @Test
+    public void recognizesDescriptors() {
+        Assert.assertTrue(ServiceDescriptors.isDescriptor("META-INF/services/com.example.Api"));
+        Assert.assertTrue(ServiceDescriptors.isDescriptor("target/classes/META-INF/spring.factories"));
+        Assert.assertTrue(ServiceDescriptors.isDescriptor(
+                "META-INF\\spring\\org.springframework.boot.autoconfigure.AutoConfiguration.imports"));
+        Assert.assertFalse(ServiceDescriptors.isDescriptor("META-INF/services/"));
+        Assert.assertFalse(ServiceDescriptors.isDescriptor("META-INF/services/nested/com.example.Api"));
+        Assert.assertFalse(ServiceDescriptors.isDescriptor("META-INF/spring/nested/a.imports"));
+        Assert.assertFalse(ServiceDescriptors.isDescriptor("META-INF/MANIFEST.MF"));
+    }
+
+    @Test
+    public void parsesServiceLoaderFiles() throws Exception {
+        Set<String> keys = new TreeSet<>();
+        Set<String> providers = new TreeSet<>();
+        parse("META-INF/services/com.example.Api",
+                "# providers\ncom.example.impl.First\n  com.example.impl.Second # inline comment\n\nnot a class\n",
+                keys, providers);
+
+        Assert.assertEquals(Set.of("com/example/Api"), keys);
+        Assert.assertEquals(Set.of("com/example/impl/First", "com/example/impl/Second"), providers);
+    }
+
+    @Test
+    public void parsesSpringFactoriesWithContinuations() throws Exception {
+        Set<String> keys = new TreeSet<>();
+        Set<String> providers = new TreeSet<>();
+        parse("META-INF/spring.factories",
+                "# comment\n"
+                        + "org.springframework.context.ApplicationListener=\\\n"
+                        + "  com.example.FirstListener,\\\n"
+                        + "  com.example.SecondListener\n"
+                        + "! another comment\n"
+                        + "org.springframework.boot.env.EnvironmentPostProcessor=com.example.Processor$Inner\n",
+                keys, providers);
+
+        Assert.assertEquals(Set.of("org/springframework/context/ApplicationListener",
+                "org/springframework/boot/env/EnvironmentPostProcessor"), keys);
+        Assert.assertEquals(Set.of("com/example/FirstListener", "com/example/SecondListener",
+                "com/example/Processor$Inner"), providers);
+    }
+
+    @Test
+    public void parsesSpringImports() throws Exception {
+        Set<String> keys = new TreeSet<>();
+        Set<String> providers = new TreeSet<>();
+        parse("META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports",
+                "# auto-configurations\ncom.example.FirstAutoConfiguration\r\ncom.example.SecondAutoConfiguration\n",
+                keys, providers);
+
+        Assert.assertEquals(Set.of("org/springframework/boot/autoconfigure/AutoConfiguration"), keys);
+        Assert.assertEquals(Set.of("com/example/FirstAutoConfiguration", "com/example/SecondAutoConfiguration"),
+                providers);
+    }
+
+    @Test
+    public void recognizesClassNames() {
+        Assert.assertTrue(ServiceDescriptors.isClassName("com.example.Foo$Bar"));
+        Assert.assertFalse(ServiceDescriptors.isClassName("Foo"));
+        Assert.assertFalse(ServiceDescriptors.isClassName("com.example."));
+        Assert.assertFalse(ServiceDescriptors.isClassName("hello world"));
+    }
+
+    private static void parse(String path, String content, Set<String> keys, Set<String> providers)
+            throws Exception {
+        ServiceDescriptors.parse(path, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                keys, providers);
+    }
+}
@@ -0,0 +1,90 @@
+package uni.dj;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class TransitiveUsageAnalyzerTest {
+
+    private static final MavenLogger SILENT = new MavenLogger() {
+        @Override
+        public void info(String msg) {
+        }
+
+        @Override
+        public void debug(String msg) {
+        }
+
+        @Override
+        public void warn(String msg) {
+        }
+
+        @Override
+        public void error(String msg) {
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void propagatesUsageAlongAChain() throws Exception {
+        // a/A extends b/B extends c/C, the project only uses a/A
+        File a = jar("a.jar", "a/A", "b/B");
+        File b = jar("b.jar", "b/B", "c/C");
+        File c = jar("c.jar", "c/C", null);
+        File d = jar("d.jar", "d/D", null);
+
+        UnusedDependencyAnalyzer projectUsage = new UnusedDependencyAnalyzer(SILENT);
+        projectUsage.addUsedClasses(List.of("a/A"));
+
+        Map<File, File> usedVia = new TransitiveUsageAnalyzer(new JarClassIndex(), SILENT)
+                .propagate(projectUsage, List.of(a), List.of(b, c, d));
+
+        Map<File, File> expected = new LinkedHashMap<>();
+        expected.put(b, a);
+        expected.put(c, b);
+        Assert.assertEquals(expected, usedVia);
+    }
+
+    @Test
+    public void nothingIsUsedWithoutUsedJars() throws Exception {
+        File b = jar("b.jar", "b/B", "c/C");
+        File c = jar("c.jar", "c/C", null);
+
+        UnusedDependencyAnalyzer projectUsage = new UnusedDependencyAnalyzer(SILENT);
+        projectUsage.addUsedClasses(List.of("a/A"));
+
+        Assert.assertEquals(Map.of(), new TransitiveUsageAnalyzer(new JarClassIndex(), SILENT)
+                .propagate(projectUsage, List.of(), List.of(b, c)));
+    }
+
+    /*
+        Writes a JAR with a single class extending the given super class, null for java/lang/Object.
+     */
+    private File jar(String name, String className, String superName) throws Exception {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, className, null,
+                superName != null ? superName : "java/lang/Object", null);
+        writer.visitEnd();
+
+        File file = new File(folder.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry(className + ".class"));
+            out.write(writer.toByteArray());
+            out.closeEntry();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,121 @@
+package uni.dj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VersionConflictReportTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void detectsWinnersAndDowngrades() throws Exception {
+        VersionConflictReport report = new VersionConflictReport();
+        report.add("core", moduleTree());
+
+        // common: 2.0 wins over 1.0, old: the nearest 1.0 wins over 3.0, a downgrade
+        Assert.assertEquals(2, report.getConflictCount());
+        Assert.assertEquals(1, report.getDowngradeCount());
+
+        File json = folder.newFile("conflicts.json");
+        report.writeJson(json);
+        JsonNode conflicts = new ObjectMapper().readTree(json).get("conflicts");
+        Assert.assertEquals(2, conflicts.size());
+        Assert.assertEquals("old", conflicts.get(0).get("artifactId").asText());
+        Assert.assertEquals("1.0", conflicts.get(0).get("winner").asText());
+        Assert.assertTrue(conflicts.get(0).get("downgrade").asBoolean());
+        Assert.assertEquals("common", conflicts.get(1).get("artifactId").asText());
+        Assert.assertEquals("2.0", conflicts.get(1).get("winner").asText());
+        Assert.assertFalse(conflicts.get(1).get("downgrade").asBoolean());
+
+        JsonNode requested = conflicts.get(0).get("versions").get(1);
+        Assert.assertEquals("3.0", requested.get("version").asText());
+        Assert.assertTrue(requested.get("newerThanWinner").asBoolean());
+        Assert.assertEquals("g:lib:1.0", requested.get("paths").get(0).asText());
+    }
+
+    @Test
+    public void deduplicatesPathsOfSeveralModules() throws Exception {
+        VersionConflictReport report = new VersionConflictReport();
+        report.add("core", moduleTree());
+        report.add("web", moduleTree());
+
+        Assert.assertEquals(2, report.getConflictCount());
+        File json = folder.newFile("conflicts.json");
+        report.writeJson(json);
+        JsonNode common = new ObjectMapper().readTree(json).get("conflicts").get(1);
+        Assert.assertEquals("[\"core\",\"web\"]", common.get("modules").toString());
+        for (JsonNode version : common.get("versions")) {
+            Assert.assertEquals(1, version.get("pathCount").asInt());
+        }
+    }
+
+    @Test
+    public void quotesCsvValues() throws Exception {
+        VersionConflictReport report = new VersionConflictReport();
+        report.add("api,\"v2\"", moduleTree());
+
+        File csv = folder.newFile("conflicts.csv");
+        report.writeCsv(csv);
+        List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(5, lines.size());
+        Assert.assertTrue(lines.get(0).startsWith("groupId,artifactId,winner,downgrade,"));
+        Assert.assertEquals("g,old,1.0,true,1.0,false,\"api,\"\"v2\"\"\",1,(direct)", lines.get(1));
+        Assert.assertEquals("g,old,1.0,true,3.0,true,\"api,\"\"v2\"\"\",1,g:lib:1.0", lines.get(2));
+    }
+
+    /*
+        Tree of one module:
+            g:lib:1.0 > g:common:2.0, g:old:3.0 (omitted for 1.0)
+            g:other:1.0 > g:common:1.0 (omitted for 2.0)
+            g:old:1.0
+     */
+    private static List<DependencyTreeNode> moduleTree() {
+        List<DependencyTreeNode> nodes = new ArrayList<>();
+        DependencyTreeNode root = node(nodes, null, "g:app:1.0", null);
+
+        DependencyTreeNode lib = node(nodes, root, "g:lib:1.0", null);
+        DependencyTreeNode common = node(nodes, lib, "g:common:2.0", null);
+        DependencyTreeNode old = node(nodes, root, "g:old:1.0", null);
+        node(nodes, lib, "g:old:3.0", old);
+
+        DependencyTreeNode other = node(nodes, root, "g:other:1.0", null);
+        node(nodes, other, "g:common:1.0", common);
+        return nodes;
+    }
+
+    private static DependencyTreeNode node(List<DependencyTreeNode> nodes, DependencyTreeNode parent,
+                                           String coordinates, DependencyTreeNode winner) {
+        DependencyNode dependencyNode = new DefaultDependencyNode(
+                new Dependency(new DefaultArtifact(coordinates), "compile"));
+        if (winner != null) {
+            dependencyNode.setData(ConflictResolver.NODE_DATA_WINNER, winner.node);
+        }
+        DependencyTreeNode node = new DependencyTreeNode();
+        node.parent = parent;
+        node.node = dependencyNode;
+        node.isOmmitted = winner != null;
+        node.name = dependencyNode.getArtifact().getGroupId() + "." + dependencyNode.getArtifact().getArtifactId();
+        node.version = dependencyNode.getArtifact().getVersion();
+        if (parent != null) {
+            parent.children.add(node);
+        }
+        nodes.add(node);
+        return node;
+    }
+}
@@ -22,7 +22,6 @@ package com.github.wvengen.maven.proguard;
 
 import org.apache.maven.artifact.Artifact;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -36,40 +35,41 @@ public class ArtifactFilter {
 
     protected String classifier;
 
+    /**
+     * Patterns compiled from {@link #groupId} and {@link #artifactId}, the fields are set by Maven after construction.
+     */
+    private NamePattern groupIdPattern;
+
+    private NamePattern artifactIdPattern;
+
     public boolean match(Artifact artifact) {
-        boolean artifactMatch = WILDCARD.equals(this.artifactId) || artifact.getArtifactId().equals(this.artifactId) ||
-                (artifactId != null && getArtifactIdMatcher(artifact).matches());
-        boolean groupMatch = artifact.getGroupId().equals(this.groupId) ||
-                (groupId != null && getGroupIdMatcher(artifact).matches());
+        boolean artifactMatch = getArtifactIdPattern().matches(artifact.getArtifactId());
+        boolean groupMatch = getGroupIdPattern().matches(artifact.getGroupId());
         boolean classifierMatch = ((this.classifier == null) && (artifact.getClassifier() == null)) || ((this.classifier != null) && this.classifier.equals(artifact.getClassifier()));
         return artifactMatch && groupMatch && classifierMatch;
     }
 
-    private Matcher getArtifactIdMatcher(Artifact artifact) {
-        try {
-            Pattern compile = Pattern.compile(escapeRegex(this.artifactId));
-            return compile.matcher(artifact.getArtifactId());
-        } catch (PatternSyntaxException e) {
-            throw new IllegalArgumentException("Invalid regex artifactId filter: " + this, e);
+    NamePattern getGroupIdPattern() {
+        if (groupIdPattern == null || !groupIdPattern.isFor(groupId)) {
+            groupIdPattern = NamePattern.compile(groupId, this);
         }
+        return groupIdPattern;
     }
 
-    private Matcher getGroupIdMatcher(Artifact artifact) {
-        try {
-            Pattern compile = Pattern.compile(escapeRegex(this.groupId));
-            return compile.matcher(artifact.getGroupId());
-        } catch (PatternSyntaxException e) {
-            throw new IllegalArgumentException("Invalid regex groupId filter: " + this, e);
+    NamePattern getArtifactIdPattern() {
+        if (artifactIdPattern == null || !artifactIdPattern.isFor(artifactId)) {
+            artifactIdPattern = NamePattern.compile(artifactId, this);
         }
+        return artifactIdPattern;
     }
-    
+
     /**
      * Escape regex and keep wildcard.<br>
      * {@link Pattern#quote(String)} method wrap string between '\Q' for starting ignoring and '\E' for ending ignoring,<br>
      * so we don't want to escape wildcard.<br>
      * 'myregexpart1*myregexpart2' becomes '\Qmyregexpart1\E.*\Qmyregexpart2\E'.
      */
-    private String escapeRegex(String str) {
+    private static String escapeRegex(String str) {
     	return Pattern.quote(str).replace(WILDCARD, "\\E.*\\Q");
     }
 
@@ -77,4 +77,65 @@ public class ArtifactFilter {
     public String toString() {
         return "groupId:" + groupId + ", artifactId:" + artifactId + ", classifier:" + classifier;
     }
+
+    /**
+     * A groupId or artifactId pattern, compiled once. Names without wildcard are compared directly, names with a
+     * single trailing wildcard by prefix, only other wildcards need a regex. A missing name matches nothing.
+     */
+    static final class NamePattern {
+
+        enum Kind {
+            NONE, ANY, EXACT, PREFIX, REGEX
+        }
+
+        final String source;
+        final Kind kind;
+        /** The name for {@link Kind#EXACT}, the prefix for {@link Kind#PREFIX}. */
+        final String text;
+        private final Pattern regex;
+
+        private NamePattern(String source, Kind kind, String text, Pattern regex) {
+            this.source = source;
+            this.kind = kind;
+            this.text = text;
+            this.regex = regex;
+        }
+
+        static NamePattern compile(String name, ArtifactFilter filter) {
+            if (name == null) {
+                return new NamePattern(null, Kind.NONE, null, null);
+            }
+            int wildcard = name.indexOf(WILDCARD);
+            if (wildcard < 0) {
+                return new NamePattern(name, Kind.EXACT, name, null);
+            }
+            if (wildcard == name.length() - 1) {
+                return new NamePattern(name, name.length() == 1 ? Kind.ANY : Kind.PREFIX, name.substring(0, wildcard), null);
+            }
+            try {
+                return new NamePattern(name, Kind.REGEX, null, Pattern.compile(escapeRegex(name)));
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid regex filter: " + filter, e);
+            }
+        }
+
+        boolean isFor(String name) {
+            return source == null ? name == null : source.equals(name);
+        }
+
+        boolean matches(String name) {
+            switch (kind) {
+                case ANY:
+                    return true;
+                case EXACT:
+                    return text.equals(name);
+                case PREFIX:
+                    return name.startsWith(text);
+                case REGEX:
+                    return regex.matcher(name).matches();
+                default:
+                    return false;
+            }
+        }
+    }
 }
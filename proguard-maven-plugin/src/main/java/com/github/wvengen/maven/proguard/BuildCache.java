@@ -0,0 +1,400 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Local cache of ProGuard results, so an execution with unchanged inputs restores the output jar, the mapping and
+ * the seeds instead of running ProGuard again.
+ *
+ * <p>The key is a SHA-256 over the ProGuard arguments, the contents of every input file or directory they name
+ * (injars, library jars, {@code -applymapping}, dictionaries and included configuration files, quoted or not), the
+ * ProGuard jars, the main class and the Java installation. Included configuration files are followed recursively, so
+ * the files they name are part of the key too. Outputs are not hashed.
+ *
+ * <p>Every entry is a directory named after its key. The directory is touched on every hit, and entries that were
+ * not used for the longest time are deleted once the cache grows beyond its maximum size.
+ */
+public class BuildCache {
+
+    private static final int FORMAT = 1;
+
+    private static final String OUTJAR = "outjar";
+    private static final String MAPPING = "mapping";
+    private static final String SEEDS = "seeds";
+
+    /**
+     * Options whose argument is a list of files read by ProGuard.
+     */
+    private static final Set<String> INPUT_OPTIONS = new HashSet<String>(Arrays.asList("-injars", "-libraryjars",
+            "-applymapping", "-obfuscationdictionary", "-classobfuscationdictionary",
+            "-packageobfuscationdictionary"));
+
+    private static final String INCLUDE = "-include";
+    private static final String BASE_DIRECTORY = "-basedirectory";
+
+    /**
+     * File digests by path, size and modification time, shared by all modules of the build.
+     */
+    private static final Map<String, byte[]> FILE_DIGESTS = new ConcurrentHashMap<String, byte[]>();
+
+    private final File directory;
+    private final long maxSize;
+    private final Log log;
+
+    public BuildCache(File directory, long maxSize, Log log) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.log = log;
+    }
+
+    /**
+     * @param baseDir the directory relative file names of the arguments are resolved against
+     * @return the cache key for a ProGuard run with these arguments, or null if a file they name can't be resolved
+     */
+    public String key(List<String> args, File baseDir, Collection<File> proguardJars, String mainClass)
+            throws IOException {
+        MessageDigest digest = sha256();
+        update(digest, "format " + FORMAT);
+        update(digest, "main " + mainClass);
+        update(digest, "java " + System.getProperty("java.home") + " " + System.getProperty("java.version"));
+
+        List<File> jars = new ArrayList<File>(proguardJars);
+        Collections.sort(jars);
+        for (File jar : jars) {
+            update(digest, "proguard " + jar.getName());
+            digest.update(digestOf(jar));
+        }
+
+        StringBuilder configuration = new StringBuilder();
+        for (String arg : args) {
+            update(digest, "arg " + arg);
+            configuration.append(arg).append('\n');
+        }
+        try {
+            digestInputs(digest, configuration.toString(), baseDir, new HashSet<File>());
+        } catch (IllegalArgumentException e) {
+            log.warn("ProGuard build cache is disabled: " + e.getMessage());
+            return null;
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Hashes the input files named by a configuration and by the configuration files it includes.
+     */
+    private static void digestInputs(MessageDigest digest, String configuration, File baseDir, Set<File> included)
+            throws IOException {
+        List<String> words = words(configuration);
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            String argument = i + 1 < words.size() ? words.get(i + 1) : null;
+            if (word.startsWith("@") && word.length() > 1) {
+                argument = word.substring(1);
+                word = INCLUDE;
+                i--;
+            } else if (word.equals("@")) {
+                word = INCLUDE;
+            }
+            if (argument == null || argument.startsWith("-")) {
+                continue;
+            }
+            if (word.equals(BASE_DIRECTORY)) {
+                baseDir = file(baseDir, unquote(argument));
+                i++;
+            } else if (word.equals(INCLUDE)) {
+                File file = file(baseDir, unquote(argument)).getAbsoluteFile();
+                update(digest, "include " + file);
+                if (file.isFile() && included.add(file)) {
+                    digest.update(digestOf(file));
+                    // ProGuard resolves the file names of a configuration file against its directory
+                    digestInputs(digest, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+                            file.getParentFile(), included);
+                }
+                i++;
+            } else if (INPUT_OPTIONS.contains(word)) {
+                for (String name : fileNames(argument)) {
+                    File file = file(baseDir, name);
+                    update(digest, "input " + file);
+                    if (file.exists()) {
+                        digest.update(digestOf(file));
+                    }
+                }
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Splits a configuration into words like ProGuard, without comments. Quoted text and filters in parentheses are
+     * part of the word, e.g. {@code 'lib/a b.jar'(!META-INF/**, **.class)}.
+     */
+    static List<String> words(String configuration) {
+        List<String> words = new ArrayList<String>();
+        StringBuilder word = new StringBuilder();
+        char quote = 0;
+        int depth = 0;
+        for (int i = 0; i < configuration.length(); i++) {
+            char c = configuration.charAt(i);
+            if (quote != 0) {
+                word.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                word.append(c);
+                quote = c;
+            } else if (c == '#' && depth == 0) {
+                while (i + 1 < configuration.length() && configuration.charAt(i + 1) != '\n') {
+                    i++;
+                }
+            } else if (Character.isWhitespace(c) && depth == 0) {
+                if (word.length() > 0) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                }
+            } else {
+                word.append(c);
+                depth += c == '(' ? 1 : c == ')' && depth > 0 ? -1 : 0;
+            }
+        }
+        if (word.length() > 0) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * @return the file names of a class path argument, e.g. {@code 'a.jar'(!META-INF/**):lib/b.jar}, without filters
+     */
+    static List<String> fileNames(String argument) {
+        List<String> names = new ArrayList<String>();
+        StringBuilder name = new StringBuilder();
+        char quote = 0;
+        int depth = 0;
+        for (int i = 0; i <= argument.length(); i++) {
+            char c = i < argument.length() ? argument.charAt(i) : File.pathSeparatorChar;
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    name.append(c);
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+            } else if (depth > 0) {
+                continue;
+            } else if (c == File.pathSeparatorChar || c == ',') {
+                if (name.length() > 0) {
+                    names.add(name.toString());
+                    name.setLength(0);
+                }
+            } else {
+                name.append(c);
+            }
+        }
+        return names;
+    }
+
+    private static String unquote(String word) {
+        List<String> names = fileNames(word);
+        return names.isEmpty() ? word : names.get(0);
+    }
+
+    /**
+     * Resolves a file name like ProGuard, including system properties like {@code <java.home>}.
+     *
+     * @throws IllegalArgumentException if the name refers to an unknown property
+     */
+    private static File file(File baseDir, String name) {
+        StringBuilder resolved = new StringBuilder();
+        int start = 0;
+        int open;
+        while ((open = name.indexOf('<', start)) >= 0) {
+            int close = name.indexOf('>', open);
+            if (close < 0) {
+                break;
+            }
+            String value = System.getProperty(name.substring(open + 1, close));
+            if (value == null) {
+                throw new IllegalArgumentException("can't resolve the file name " + name);
+            }
+            resolved.append(name, start, open).append(value);
+            start = close + 1;
+        }
+        File file = new File(resolved.append(name.substring(start)).toString());
+        return file.isAbsolute() || baseDir == null ? file : new File(baseDir, file.getPath());
+    }
+
+    /**
+     * Copies the cached outputs to their places.
+     *
+     * @return false if there is no entry for the key
+     */
+    public boolean restore(String key, File outJar, File mappingFile, File seedFile) throws IOException {
+        File entry = new File(directory, key);
+        if (!entry.isDirectory()) {
+            return false;
+        }
+        restore(new File(entry, OUTJAR), outJar);
+        restore(new File(entry, MAPPING), mappingFile);
+        restore(new File(entry, SEEDS), seedFile);
+        entry.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Stores the outputs of a ProGuard run and evicts the least recently used entries above the maximum size.
+     */
+    public void store(String key, File outJar, File mappingFile, File seedFile) throws IOException {
+        File entry = new File(directory, key);
+        if (entry.isDirectory()) {
+            return;
+        }
+        // fill a temporary directory first, a concurrent build sees the entry complete or not at all
+        File temporary = new File(directory, key + "." + UUID.randomUUID() + ".tmp");
+        try {
+            FileUtils.forceMkdir(temporary);
+            copy(outJar, new File(temporary, OUTJAR));
+            copy(mappingFile, new File(temporary, MAPPING));
+            copy(seedFile, new File(temporary, SEEDS));
+            if (!temporary.renameTo(entry)) {
+                log.debug("ProGuard build cache entry " + key + " was stored concurrently");
+            }
+        } finally {
+            FileUtils.deleteQuietly(temporary);
+        }
+        evict();
+    }
+
+    private void evict() throws IOException {
+        File[] entries = directory.listFiles();
+        if (entries == null) {
+            return;
+        }
+        List<File> complete = new ArrayList<File>();
+        long total = 0;
+        for (File entry : entries) {
+            if (entry.isDirectory() && !entry.getName().endsWith(".tmp")) {
+                complete.add(entry);
+                total += FileUtils.sizeOfDirectory(entry);
+            }
+        }
+        Collections.sort(complete, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File entry : complete) {
+            if (total <= maxSize) {
+                break;
+            }
+            long size = FileUtils.sizeOfDirectory(entry);
+            log.debug("Evicting ProGuard build cache entry " + entry.getName());
+            FileUtils.deleteDirectory(entry);
+            total -= size;
+        }
+    }
+
+    private static void restore(File cached, File target) throws IOException {
+        FileUtils.deleteQuietly(target);
+        copy(cached, target);
+        // restored outputs are new to later goals, e.g. retrace-index, that compare modification times
+        if (target.exists()) {
+            target.setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    private static void copy(File source, File target) throws IOException {
+        if (source.isDirectory()) {
+            FileUtils.copyDirectory(source, target);
+        } else if (source.isFile()) {
+            FileUtils.copyFile(source, target);
+        }
+    }
+
+    private static byte[] digestOf(File file) throws IOException {
+        if (!file.isDirectory()) {
+            String key = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+            byte[] digest = FILE_DIGESTS.get(key);
+            if (digest == null) {
+                digest = contentDigest(file.toPath());
+                FILE_DIGESTS.put(key, digest);
+            }
+            return digest;
+        }
+
+        MessageDigest digest = sha256();
+        // the temporary libraryJars directory may contain symbolic links to library directories
+        Path root = file.toPath().toRealPath();
+        List<Path> files = new ArrayList<Path>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile).forEach(files::add);
+        }
+        Collections.sort(files);
+        for (Path path : files) {
+            update(digest, root.relativize(path).toString().replace('\\', '/'));
+            digest.update(digestOf(path.toFile()));
+        }
+        return digest.digest();
+    }
+
+    static byte[] contentDigest(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[65536];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
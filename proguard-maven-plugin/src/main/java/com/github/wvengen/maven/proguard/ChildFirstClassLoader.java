@@ -0,0 +1,64 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Class loader that looks into its own URLs before asking the parent.
+ *
+ * <p>Used to run ProGuard inside the Maven JVM: the ProGuard version of a library always wins over
+ * the version Maven or another plugin may have loaded, so the result is the same as in a forked JVM.
+ * Only {@code java.*} classes are always taken from the parent.
+ */
+public class ChildFirstClassLoader extends URLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    public ChildFirstClassLoader(URL[] urls, ClassLoader parent) {
+        super(urls, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                if (name.startsWith("java.")) {
+                    loaded = super.loadClass(name, false);
+                } else {
+                    try {
+                        loaded = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        loaded = super.loadClass(name, false);
+                    }
+                }
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    @Override
+    public URL getResource(String name) {
+        URL url = findResource(name);
+        return url != null ? url : super.getResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+        List<URL> urls = new ArrayList<URL>(Collections.list(findResources(name)));
+        if (getParent() != null) {
+            urls.addAll(Collections.list(getParent().getResources(name)));
+        }
+        return Collections.enumeration(urls);
+    }
+}
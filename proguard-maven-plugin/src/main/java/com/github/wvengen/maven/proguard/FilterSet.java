@@ -0,0 +1,113 @@
+package com.github.wvengen.maven.proguard;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+
+import com.github.wvengen.maven.proguard.ArtifactFilter.NamePattern;
+
+/**
+ * Matches an artifact against a list of {@link ArtifactFilter}s, e.g. all inclusions of the assembly, in one lookup.
+ *
+ * <p>The filters are indexed by their groupId: exact groupIds in a hash map, {@code prefix*} groupIds in a prefix trie.
+ * Only the filters found for the groupId of the artifact, plus the few with another wildcard, are checked further.
+ */
+public class FilterSet<T extends ArtifactFilter> {
+
+    private final List<T> filters;
+
+    private final Map<String, BitSet> exactGroups = new HashMap<String, BitSet>();
+    private final PrefixNode prefixGroups = new PrefixNode();
+    private final BitSet otherGroups = new BitSet();
+
+    public FilterSet(List<T> filters) {
+        this.filters = filters != null ? new ArrayList<T>(filters) : Collections.<T>emptyList();
+        for (int i = 0; i < this.filters.size(); i++) {
+            NamePattern groupId = this.filters.get(i).getGroupIdPattern();
+            switch (groupId.kind) {
+                case NONE:
+                    break;
+                case EXACT:
+                    BitSet exact = exactGroups.get(groupId.text);
+                    if (exact == null) {
+                        exact = new BitSet();
+                        exactGroups.put(groupId.text, exact);
+                    }
+                    exact.set(i);
+                    break;
+                case PREFIX:
+                    prefixGroups.add(groupId.text).filters.set(i);
+                    break;
+                default:
+                    otherGroups.set(i);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return the filters matching the artifact, in the order they were given
+     */
+    public List<T> matching(Artifact artifact) {
+        BitSet candidates = candidates(artifact);
+        List<T> result = new ArrayList<T>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (filters.get(i).match(artifact)) {
+                result.add(filters.get(i));
+            }
+        }
+        return result;
+    }
+
+    public boolean matchesAny(Artifact artifact) {
+        BitSet candidates = candidates(artifact);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (filters.get(i).match(artifact)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BitSet candidates(Artifact artifact) {
+        String groupId = artifact.getGroupId();
+        BitSet candidates = (BitSet) otherGroups.clone();
+        BitSet exact = exactGroups.get(groupId);
+        if (exact != null) {
+            candidates.or(exact);
+        }
+        PrefixNode node = prefixGroups;
+        for (int i = 0; node != null; i++) {
+            candidates.or(node.filters);
+            node = i < groupId.length() ? node.children.get(groupId.charAt(i)) : null;
+        }
+        return candidates;
+    }
+
+    /**
+     * Node of the prefix trie, holds the filters whose groupId prefix ends here.
+     */
+    private static final class PrefixNode {
+
+        final Map<Character, PrefixNode> children = new HashMap<Character, PrefixNode>();
+        final BitSet filters = new BitSet();
+
+        PrefixNode add(String prefix) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                PrefixNode child = node.children.get(prefix.charAt(i));
+                if (child == null) {
+                    child = new PrefixNode();
+                    node.children.put(prefix.charAt(i), child);
+                }
+                node = child;
+            }
+            return node;
+        }
+    }
+}
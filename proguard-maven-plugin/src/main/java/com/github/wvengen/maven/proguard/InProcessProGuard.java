@@ -0,0 +1,110 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Runs ProGuard inside the Maven JVM instead of forking a new JVM for every module.
+ *
+ * <p>The ProGuard JARs and the plugin dependencies are loaded by a {@link ChildFirstClassLoader}. The class loader
+ * is stored in the Maven session and reused by all modules that use the same JARs, so ProGuard is loaded and
+ * JIT-compiled only once per build. ProGuard itself is started by the {@link ProGuardLauncher}.
+ */
+public final class InProcessProGuard {
+
+    private static final String SESSION_KEY = InProcessProGuard.class.getName();
+
+    private InProcessProGuard() {
+    }
+
+    /**
+     * Returns the class loader for the given class path, creating it on first use in this session.
+     * A changed JAR (size or modification time) gets a new class loader.
+     */
+    public static ClassLoader getClassLoader(MavenSession session, Collection<File> classPath, ClassLoader parent)
+            throws MojoExecutionException {
+        List<File> files = new ArrayList<File>(classPath);
+        Collections.sort(files);
+
+        StringBuilder key = new StringBuilder();
+        URL[] urls = new URL[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i).getAbsoluteFile();
+            key.append(file).append('|').append(file.length()).append('|').append(file.lastModified()).append(';');
+            try {
+                urls[i] = file.toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new MojoExecutionException("Invalid ProGuard class path entry " + file, e);
+            }
+        }
+
+        Map<String, ClassLoader> cache = getCache(session);
+        ClassLoader loader = cache.get(key.toString());
+        if (loader == null) {
+            ClassLoader created = new ChildFirstClassLoader(urls, parent);
+            loader = cache.putIfAbsent(key.toString(), created);
+            if (loader == null) {
+                loader = created;
+            }
+        }
+        return loader;
+    }
+
+    /**
+     * Runs ProGuard with the given arguments, the same arguments the forked JVM would get.
+     * Runs on the same class loader are serialized, ProGuard keeps some static state.
+     *
+     * @param baseDir directory relative file names are resolved against, the module basedir as for the forked JVM
+     */
+    public static void execute(ClassLoader loader, String mainClass, List<String> args, File baseDir, Log log)
+            throws MojoExecutionException {
+        String[] arguments = args.toArray(new String[0]);
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        int result;
+        synchronized (loader) {
+            thread.setContextClassLoader(loader);
+            try {
+                result = ProGuardLauncher.run(loader, mainClass, arguments, baseDir);
+            } catch (ReflectiveOperationException e) {
+                throw new MojoExecutionException("Obfuscation failed ProGuard (" + mainClass + ") not found in classpath", e);
+            } catch (UnsupportedOperationException e) {
+                throw new MojoExecutionException(e.getMessage() + ", run it with fork=true", e);
+            } catch (Exception e) {
+                throw new MojoExecutionException("Obfuscation failed: " + e.getMessage(), e);
+            } finally {
+                thread.setContextClassLoader(contextClassLoader);
+            }
+        }
+        if (result != 0) {
+            throw new MojoExecutionException("Obfuscation failed (result=" + result + ")");
+        }
+        log.debug(mainClass + " finished in-process");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ClassLoader> getCache(MavenSession session) {
+        if (session == null || session.getRepositorySession() == null) {
+            return new ConcurrentHashMap<String, ClassLoader>();
+        }
+        SessionData data = session.getRepositorySession().getData();
+        Object cache = data.get(SESSION_KEY);
+        while (cache == null) {
+            data.set(SESSION_KEY, null, new ConcurrentHashMap<String, ClassLoader>());
+            cache = data.get(SESSION_KEY);
+        }
+        return (Map<String, ClassLoader>) cache;
+    }
+}
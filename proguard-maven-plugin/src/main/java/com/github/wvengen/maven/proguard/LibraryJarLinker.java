@@ -0,0 +1,193 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Fills the temporary library directory of {@code putLibraryJarsInTempDir} without copying the library jars.
+ *
+ * <p>Library jars that are files go to the subdirectory {@code 0}, every library that is a directory gets its own
+ * numbered subdirectory. Each library is hard linked if possible, symbolically linked otherwise and copied with
+ * {@link FileChannel#transferTo} as the last resort; ProGuard only reads them. The libraries are linked in parallel.
+ *
+ * <p>A manifest in the directory records the sources with size and modification time. If it matches the libraries of
+ * the next run the directory is reused as it is.
+ */
+public class LibraryJarLinker {
+
+    private static final String MANIFEST = ".libraries";
+
+    private final Log log;
+
+    private final AtomicInteger hardLinks = new AtomicInteger();
+    private final AtomicInteger symbolicLinks = new AtomicInteger();
+    private final AtomicInteger copies = new AtomicInteger();
+
+    public LibraryJarLinker(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * @return the directories to pass as {@code -libraryjars}: one per library directory, then the one of the files
+     */
+    public List<File> link(File tempDir, List<File> libraryJars) throws IOException {
+        File commonDir = new File(tempDir, "0");
+        // later libraries with the same file name win, as when copying one after the other
+        Map<File, File> targets = new LinkedHashMap<File, File>();
+        List<File> directories = new ArrayList<File>();
+        int directoryIndex = 1;
+        for (File libraryJar : libraryJars) {
+            if (libraryJar.isFile()) {
+                targets.put(new File(commonDir, libraryJar.getName()), libraryJar.getAbsoluteFile());
+            } else {
+                File subDir = new File(tempDir, String.valueOf(directoryIndex));
+                targets.put(subDir, libraryJar.getAbsoluteFile());
+                directories.add(subDir);
+            }
+            directoryIndex++;
+        }
+        directories.add(commonDir);
+
+        String manifest = manifest(tempDir, targets);
+        File manifestFile = new File(tempDir, MANIFEST);
+        if (manifestFile.isFile() && manifest.equals(FileUtils.readFileToString(manifestFile, StandardCharsets.UTF_8))) {
+            log.debug("Reusing temporary libraryJars directory " + tempDir);
+            return directories;
+        }
+
+        if (tempDir.exists()) {
+            FileUtils.deleteDirectory(tempDir);
+        }
+        FileUtils.forceMkdir(commonDir);
+        try {
+            targets.entrySet().parallelStream().forEach(target -> {
+                try {
+                    link(target.getValue().toPath(), target.getKey().toPath());
+                } catch (IOException e) {
+                    throw new LinkException(target.getValue(), e);
+                }
+            });
+        } catch (LinkException e) {
+            throw new IOException("Can't link " + e.source + " into " + tempDir, e.getCause());
+        }
+        FileUtils.writeStringToFile(manifestFile, manifest, StandardCharsets.UTF_8);
+
+        log.debug("Temporary libraryJars directory: " + hardLinks + " hard links, " + symbolicLinks
+                + " symbolic links, " + copies + " copies");
+        return directories;
+    }
+
+    private void link(Path source, Path target) throws IOException {
+        if (Files.isDirectory(source)) {
+            try {
+                Files.createSymbolicLink(target, source);
+                symbolicLinks.incrementAndGet();
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                log.debug("Can't link directory " + source + ": " + e);
+            }
+            List<Path> files = new ArrayList<Path>();
+            try (Stream<Path> walk = Files.walk(source)) {
+                walk.forEach(files::add);
+            }
+            for (Path path : files) {
+                Path copy = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(copy);
+                } else {
+                    linkFile(path, copy);
+                }
+            }
+        } else {
+            linkFile(source, target);
+        }
+    }
+
+    private void linkFile(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+            hardLinks.incrementAndGet();
+            return;
+        } catch (IOException | UnsupportedOperationException e) {
+            // other file system or no hard links
+        }
+        try {
+            Files.createSymbolicLink(target, source);
+            symbolicLinks.incrementAndGet();
+            return;
+        } catch (IOException | UnsupportedOperationException e) {
+            // e.g. Windows without the privilege to create symbolic links
+        }
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+        Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+        copies.incrementAndGet();
+    }
+
+    /**
+     * @return one line per library with target, source and a fingerprint of the source contents
+     */
+    private static String manifest(File tempDir, Map<File, File> targets) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (Map.Entry<File, File> target : targets.entrySet()) {
+            manifest.append(tempDir.toPath().relativize(target.getKey().toPath())).append('\t')
+                    .append(target.getValue()).append('\t').append(fingerprint(target.getValue())).append('\n');
+        }
+        return manifest.toString();
+    }
+
+    /**
+     * Size and modification time, for a directory the number of files, their total size and the latest modification.
+     * A directory might have been copied, so its files count as well.
+     */
+    private static String fingerprint(File source) throws IOException {
+        if (!source.isDirectory()) {
+            return source.length() + "\t" + source.lastModified();
+        }
+        long count = 0;
+        long size = 0;
+        long lastModified = 0;
+        List<Path> files = new ArrayList<Path>();
+        try (Stream<Path> walk = Files.walk(source.toPath())) {
+            walk.filter(Files::isRegularFile).forEach(files::add);
+        }
+        for (Path file : files) {
+            count++;
+            size += Files.size(file);
+            lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+        }
+        return count + "\t" + size + "\t" + lastModified;
+    }
+
+    private static final class LinkException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        final File source;
+
+        LinkException(File source, IOException cause) {
+            super(cause);
+            this.source = source;
+        }
+    }
+}
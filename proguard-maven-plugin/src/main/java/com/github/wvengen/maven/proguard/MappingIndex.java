@@ -0,0 +1,160 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sidecar index of a mapping file written by {@link MappingMerger}, to look up the mapping of a class by its original
+ * name in O(log n) without reading the mapping file.
+ *
+ * <p>The index holds the length of the mapping file it was written for and the byte offset of every class, in the
+ * order of the mapping file, i.e. sorted by original class name. A lookup is a binary search reading the class names
+ * from the mapping file at these offsets.
+ */
+public class MappingIndex implements AutoCloseable {
+
+    static final String EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x50474d49;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+    private final RandomAccessFile mapping;
+    private final RandomAccessFile index;
+    private final long mappingLength;
+    private final int size;
+
+    private MappingIndex(RandomAccessFile mapping, RandomAccessFile index, long mappingLength, int size) {
+        this.mapping = mapping;
+        this.index = index;
+        this.mappingLength = mappingLength;
+        this.size = size;
+    }
+
+    /**
+     * Opens the index of a mapping file.
+     *
+     * @throws IOException if there is no index for the mapping file as it is
+     */
+    public static MappingIndex open(File mappingFile) throws IOException {
+        if (!isValid(mappingFile)) {
+            throw new IOException("No up to date index for " + mappingFile);
+        }
+        RandomAccessFile index = new RandomAccessFile(indexFile(mappingFile), "r");
+        try {
+            index.seek(HEADER_SIZE - 12);
+            long mappingLength = index.readLong();
+            int size = index.readInt();
+            return new MappingIndex(new RandomAccessFile(mappingFile, "r"), index, mappingLength, size);
+        } catch (IOException e) {
+            index.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the lines of the class mapping, header first, or null if the class is not in the mapping
+     */
+    public List<String> lookup(String originalClassName) throws IOException {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = readName(offset(middle)).compareTo(originalClassName);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                long start = offset(middle);
+                long end = middle + 1 < size ? offset(middle + 1) : mappingLength;
+                byte[] block = new byte[(int) (end - start)];
+                mapping.seek(start);
+                mapping.readFully(block);
+                return new ArrayList<String>(Arrays.asList(new String(block, StandardCharsets.UTF_8).split("\n")));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            index.close();
+        } finally {
+            mapping.close();
+        }
+    }
+
+    private long offset(int i) throws IOException {
+        index.seek(HEADER_SIZE + 8L * i);
+        return index.readLong();
+    }
+
+    private String readName(long offset) throws IOException {
+        byte[] buffer = new byte[256];
+        mapping.seek(offset);
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = mapping.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            String text = new String(buffer, 0, length + read, StandardCharsets.ISO_8859_1);
+            int arrow = text.indexOf(" -> ", Math.max(0, length - 3));
+            length += read;
+            if (arrow >= 0) {
+                return new String(buffer, 0, arrow, StandardCharsets.UTF_8);
+            }
+        }
+        throw new IOException("Corrupt mapping file at offset " + offset);
+    }
+
+    static File indexFile(File mappingFile) {
+        return new File(mappingFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * @return true if the mapping file has an index written for its current length
+     */
+    static boolean isValid(File mappingFile) {
+        File indexFile = indexFile(mappingFile);
+        if (!mappingFile.isFile() || !indexFile.isFile()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == mappingFile.length();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static void write(File indexFile, long mappingLength, List<Long> offsets) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(mappingLength);
+            out.writeInt(offsets.size());
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Merges the mapping of a build into the {@code applyMappingFile} of incremental obfuscation.
+ *
+ * <p>Class mappings are deduplicated by original class name and member mappings by original signature, the mapping of
+ * the latest build wins. The frames of inlined methods, consecutive lines with the obfuscated name and line range of
+ * the method they are inlined into, are kept with that method, the last of them. The result is sorted by original class name and
+ * gets a {@link MappingIndex}.
+ *
+ * <p>A merged file is streamed, only the mapping of the latest build is held in memory. A file without a matching
+ * index, e.g. one appended to by earlier versions of the plugin, is compacted in memory once.
+ */
+public class MappingMerger {
+
+    private final Log log;
+
+    public MappingMerger(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Merges {@code update} into {@code target} and writes the index of {@code target}.
+     */
+    public void merge(File update, File target) throws IOException {
+        TreeMap<String, ClassMapping> updates = read(update, new TreeMap<String, ClassMapping>());
+        File parent = target.getAbsoluteFile().getParentFile();
+        Files.createDirectories(parent.toPath());
+        File tempFile = File.createTempFile(target.getName(), ".tmp", parent);
+        File tempIndex = new File(tempFile.getPath() + MappingIndex.EXTENSION);
+        try {
+            List<Long> offsets = new ArrayList<Long>();
+            try (OffsetWriter out = new OffsetWriter(tempFile)) {
+                if (!target.exists()) {
+                    write(updates.values().iterator(), out, offsets);
+                } else if (MappingIndex.isValid(target)) {
+                    try (ClassReader base = new ClassReader(target)) {
+                        write(new MergingIterator(base, updates.values().iterator()), out, offsets);
+                    }
+                } else {
+                    log.info("Compacting mapping file " + target);
+                    TreeMap<String, ClassMapping> all = read(target, new TreeMap<String, ClassMapping>());
+                    for (ClassMapping mapping : updates.values()) {
+                        put(all, mapping);
+                    }
+                    write(all.values().iterator(), out, offsets);
+                }
+            }
+            MappingIndex.write(tempIndex, tempFile.length(), offsets);
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempIndex.toPath(), MappingIndex.indexFile(target).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            log.debug("Mapping file " + target + " has " + offsets.size() + " classes");
+        } finally {
+            tempFile.delete();
+            tempIndex.delete();
+        }
+    }
+
+    private static TreeMap<String, ClassMapping> read(File file, TreeMap<String, ClassMapping> mappings)
+            throws IOException {
+        try (ClassReader reader = new ClassReader(file)) {
+            ClassMapping mapping;
+            while ((mapping = reader.next()) != null) {
+                put(mappings, mapping);
+            }
+        }
+        return mappings;
+    }
+
+    private static void put(Map<String, ClassMapping> mappings, ClassMapping mapping) {
+        ClassMapping previous = mappings.get(mapping.name);
+        mappings.put(mapping.name, previous != null ? previous.mergedWith(mapping) : mapping);
+    }
+
+    private static void write(Iterator<ClassMapping> mappings, OffsetWriter out, List<Long> offsets)
+            throws IOException {
+        try {
+            while (mappings.hasNext()) {
+                offsets.add(out.offset());
+                mappings.next().write(out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The mapping of one class: its header line, class comments and member mappings by key.
+     */
+    static final class ClassMapping {
+
+        final String name;
+        final List<String> header = new ArrayList<String>();
+        final TreeMap<String, List<String>> members = new TreeMap<String, List<String>>();
+
+        ClassMapping(String headerLine) {
+            this.name = headerLine.substring(0, headerLine.indexOf(" -> ")).trim();
+            header.add(headerLine);
+        }
+
+        ClassMapping mergedWith(ClassMapping latest) {
+            members.putAll(latest.members);
+            latest.members.clear();
+            latest.members.putAll(members);
+            return latest;
+        }
+
+        void write(Writer out) throws IOException {
+            for (String line : header) {
+                out.write(line);
+                out.write('\n');
+            }
+            for (List<String> lines : members.values()) {
+                for (String line : lines) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a mapping file class by class, in file order.
+     */
+    static final class ClassReader implements AutoCloseable {
+
+        private final BufferedReader reader;
+        private String pending;
+
+        ClassReader(File file) throws IOException {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8),
+                    1 << 16);
+        }
+
+        ClassMapping next() throws IOException {
+            String line = pending != null ? pending : reader.readLine();
+            // skip the file header, e.g. "# compiler: R8"
+            while (line != null && !isClassLine(line)) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+            ClassMapping mapping = new ClassMapping(line);
+            List<String> group = new ArrayList<String>();
+            String groupFrame = null;
+            while ((line = reader.readLine()) != null && !isClassLine(line)) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String trimmed = line.trim();
+                if (trimmed.startsWith("#") || !trimmed.contains(" -> ")) {
+                    (group.isEmpty() ? mapping.header : group).add(line);
+                    continue;
+                }
+                // inlined frames share the obfuscated name and line range of the method they are inlined into
+                String frame = frame(trimmed);
+                if (frame == null || !frame.equals(groupFrame)) {
+                    add(mapping, group);
+                    group = new ArrayList<String>();
+                }
+                group.add(line);
+                groupFrame = frame;
+            }
+            add(mapping, group);
+            pending = line;
+            return mapping;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        /**
+         * Adds a member with its inlined frames, by the signature of the last frame, the method they are inlined into.
+         */
+        private static void add(ClassMapping mapping, List<String> group) {
+            String last = null;
+            for (String line : group) {
+                if (!line.trim().startsWith("#")) {
+                    last = line.trim();
+                }
+            }
+            if (last == null) {
+                return;
+            }
+            String key = memberKey(last);
+            List<String> lines = mapping.members.get(key);
+            if (lines == null) {
+                mapping.members.put(key, group);
+            } else {
+                lines.addAll(group);
+            }
+        }
+
+        private static boolean isClassLine(String line) {
+            return !line.isEmpty() && !Character.isWhitespace(line.charAt(0)) && line.charAt(0) != '#'
+                    && line.endsWith(":") && line.contains(" -> ");
+        }
+
+        private static boolean hasLineNumbers(String member) {
+            return !member.isEmpty() && Character.isDigit(member.charAt(0));
+        }
+
+        /**
+         * The obfuscated line range and name of a method with line numbers, e.g. {@code 6:6: -> a}, or null.
+         */
+        private static String frame(String member) {
+            if (!hasLineNumbers(member)) {
+                return null;
+            }
+            int colon = member.indexOf(':', member.indexOf(':') + 1);
+            return colon < 0 ? null : member.substring(0, colon + 1) + member.substring(member.lastIndexOf(" -> "));
+        }
+
+        /**
+         * The original signature of a member, without line numbers, e.g. {@code void run(int)}.
+         */
+        static String memberKey(String member) {
+            String key = member.substring(0, member.lastIndexOf(" -> "));
+            if (hasLineNumbers(key)) {
+                key = key.substring(key.indexOf(':', key.indexOf(':') + 1) + 1);
+            }
+            int close = key.lastIndexOf(')');
+            return close >= 0 ? key.substring(0, close + 1) : key;
+        }
+    }
+
+    /**
+     * Merges the sorted classes of a merged file with the sorted classes of the latest build.
+     */
+    private static final class MergingIterator implements Iterator<ClassMapping> {
+
+        private final ClassReader base;
+        private final Iterator<ClassMapping> updates;
+        private ClassMapping nextBase;
+        private ClassMapping nextUpdate;
+
+        MergingIterator(ClassReader base, Iterator<ClassMapping> updates) throws IOException {
+            this.base = base;
+            this.updates = updates;
+            this.nextBase = base.next();
+            this.nextUpdate = updates.hasNext() ? updates.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextBase != null || nextUpdate != null;
+        }
+
+        @Override
+        public ClassMapping next() {
+            try {
+                int order = nextBase == null ? 1 : nextUpdate == null ? -1 : nextBase.name.compareTo(nextUpdate.name);
+                ClassMapping result;
+                if (order < 0) {
+                    result = nextBase;
+                    nextBase = base.next();
+                } else if (order > 0) {
+                    result = nextUpdate;
+                    nextUpdate = updates.hasNext() ? updates.next() : null;
+                } else {
+                    result = nextBase.mergedWith(nextUpdate);
+                    nextBase = base.next();
+                    nextUpdate = updates.hasNext() ? updates.next() : null;
+                }
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes UTF-8 and keeps track of the byte offset, for the index.
+     */
+    private static final class OffsetWriter extends Writer {
+
+        private final FileOutputStream file;
+        private final BufferedWriter out;
+        private long offset;
+
+        OffsetWriter(File target) throws IOException {
+            file = new FileOutputStream(target);
+            out = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        long offset() {
+            return offset;
+        }
+
+        @Override
+        public void write(String line) throws IOException {
+            out.write(line);
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                offset += c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isSurrogate(c) ? 2 : 3;
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            write(String.valueOf((char) c));
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            write(new String(chars, off, len));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
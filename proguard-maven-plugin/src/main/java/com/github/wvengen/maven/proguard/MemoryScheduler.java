@@ -0,0 +1,233 @@
+package com.github.wvengen.maven.proguard;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Limits the memory of the ProGuard JVMs running at the same time in a parallel build, e.g. {@code mvn -T 8}.
+ *
+ * <p>Every ProGuard run reserves its {@code maxMemory} from a budget shared by all modules of the session, and waits
+ * while the budget is used up. Whenever memory is released the waiting runs are started largest input first, so the
+ * longest runs do not end up last. Runs behind a waiting run that does not fit yet wait too, even if they would fit,
+ * so the larger run is not held back by smaller ones arriving. A run larger than the whole budget runs alone.
+ *
+ * <p>A JVM shared by many runs, e.g. a ProGuard worker, reserves its memory once for the rest of the session. Once
+ * only such memory is reserved waiting would not free any, the largest waiting run then starts even if it does not fit.
+ */
+public final class MemoryScheduler {
+
+    private static final String SESSION_KEY = MemoryScheduler.class.getName();
+
+    private final long budget;
+    private long reserved;
+    private long reservedShared;
+    private long sequence;
+
+    /**
+     * Shared JVMs by key, true once their memory is reserved.
+     */
+    private final Map<String, Boolean> shared = new HashMap<String, Boolean>();
+
+    private final TreeSet<Request> waiting = new TreeSet<Request>(new Comparator<Request>() {
+        @Override
+        public int compare(Request a, Request b) {
+            if (a.size != b.size) {
+                return a.size > b.size ? -1 : 1;
+            }
+            return Long.compare(a.sequence, b.sequence);
+        }
+    });
+
+    MemoryScheduler(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the scheduler of this session, creating it with the given budget on first use.
+     */
+    public static MemoryScheduler get(MavenSession session, long budget) {
+        if (session == null || session.getRepositorySession() == null) {
+            return new MemoryScheduler(budget);
+        }
+        SessionData data = session.getRepositorySession().getData();
+        Object scheduler = data.get(SESSION_KEY);
+        while (scheduler == null) {
+            data.set(SESSION_KEY, null, new MemoryScheduler(budget));
+            scheduler = data.get(SESSION_KEY);
+        }
+        return (MemoryScheduler) scheduler;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Waits until the memory is available and reserves it.
+     *
+     * @param memory the memory to reserve in bytes
+     * @param size the size of the run, e.g. of its input jars, larger runs are started first
+     */
+    public Reservation reserve(long memory, long size) throws InterruptedException {
+        long start = System.nanoTime();
+        Request request = new Request(Math.min(memory, budget), size);
+        synchronized (this) {
+            request.sequence = sequence++;
+            waiting.add(request);
+            grant();
+            try {
+                while (!request.granted) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                if (request.granted) {
+                    release(request.memory);
+                } else {
+                    waiting.remove(request);
+                }
+                throw e;
+            }
+        }
+        return new Reservation(request.memory, (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Reserves the memory of a JVM shared by many runs once per key and keeps it until the end of the session, the
+     * JVM keeps its heap after a run. Later runs with the key wait until the memory of the first one is reserved.
+     *
+     * @return the reservation of the first run with the key, {@link Reservation#close()} does not release it, null
+     *         for later runs
+     */
+    public Reservation reserveShared(String key, long memory, long size) throws InterruptedException {
+        synchronized (this) {
+            while (Boolean.FALSE.equals(shared.get(key))) {
+                wait();
+            }
+            if (shared.containsKey(key)) {
+                return null;
+            }
+            shared.put(key, Boolean.FALSE);
+        }
+        Reservation reservation = null;
+        try {
+            reservation = reserve(memory, size);
+            // kept until the end of the session
+            reservation.released = true;
+            return reservation;
+        } finally {
+            synchronized (this) {
+                if (reservation != null) {
+                    shared.put(key, Boolean.TRUE);
+                    reservedShared += reservation.memory;
+                    grant();
+                } else {
+                    shared.remove(key);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized void release(long memory) {
+        reserved -= memory;
+        grant();
+    }
+
+    private void grant() {
+        boolean granted = false;
+        for (Iterator<Request> it = waiting.iterator(); it.hasNext();) {
+            Request request = it.next();
+            // smaller runs must not take the memory the largest waiting run is waiting for
+            if (reserved + request.memory > budget && reserved > reservedShared) {
+                break;
+            }
+            reserved += request.memory;
+            request.granted = true;
+            granted = true;
+            it.remove();
+        }
+        if (granted) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Parses a memory size like the {@code -Xmx} option, e.g. {@code 512m} or {@code 4g}.
+     *
+     * @return the size in bytes
+     */
+    public static long parseSize(String size) {
+        String value = size.trim().toLowerCase(Locale.ROOT);
+        long unit = 1;
+        switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1)) {
+            case 'k':
+                unit = 1L << 10;
+                break;
+            case 'm':
+                unit = 1L << 20;
+                break;
+            case 'g':
+                unit = 1L << 30;
+                break;
+            case 't':
+                unit = 1L << 40;
+                break;
+            default:
+                break;
+        }
+        try {
+            return Long.parseLong(unit == 1 ? value : value.substring(0, value.length() - 1)) * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid memory size " + size, e);
+        }
+    }
+
+    private static final class Request {
+
+        final long memory;
+        final long size;
+        long sequence;
+        boolean granted;
+
+        Request(long memory, long size) {
+            this.memory = memory;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Reserved memory, released on {@link #close()}.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final long memory;
+        private final long waitMillis;
+        private boolean released;
+
+        Reservation(long memory, long waitMillis) {
+            this.memory = memory;
+            this.waitMillis = waitMillis;
+        }
+
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+
+        @Override
+        public void close() {
+            synchronized (MemoryScheduler.this) {
+                if (!released) {
+                    released = true;
+                    release(memory);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.security.Permission;
+import java.util.Properties;
+
+/**
+ * Starts ProGuard in the current JVM, shared by the in-process mode and the worker daemon.
+ *
+ * <p>Only uses JDK classes, so it also runs in the worker JVM where no Maven classes are available.
+ * {@code proguard.ProGuard} is called through its configuration API ({@code ConfigurationParser} and
+ * {@code ProGuard.execute()}); other main classes, e.g. DexGuard, are called through their {@code main} method
+ * with a guard that turns {@code System.exit} into an exception.
+ */
+final class ProGuardLauncher {
+
+    static final String PROGUARD_MAIN_CLASS = "proguard.ProGuard";
+
+    private ProGuardLauncher() {
+    }
+
+    /**
+     * Runs ProGuard with the arguments the forked JVM would get, exceptions of ProGuard are rethrown unwrapped.
+     *
+     * @param baseDir directory relative file names in the arguments are resolved against, or null for the working directory
+     * @return the exit status, always 0 for the configuration API
+     * @throws ReflectiveOperationException if the main class or its {@code main} method does not exist
+     * @throws UnsupportedOperationException if {@code System.exit} of a main method cannot be guarded
+     */
+    static int run(ClassLoader loader, String mainClass, String[] args, File baseDir) throws Exception {
+        if (PROGUARD_MAIN_CLASS.equals(mainClass) && hasConfigurationApi(loader)) {
+            runConfiguration(loader, args, baseDir);
+            return 0;
+        }
+        return runMain(loader, mainClass, args);
+    }
+
+    private static void runConfiguration(ClassLoader loader, String[] args, File baseDir) throws Exception {
+        Class<?> configurationClass = loader.loadClass("proguard.Configuration");
+        Class<?> parserClass = loader.loadClass("proguard.ConfigurationParser");
+        Object configuration = configurationClass.getConstructor().newInstance();
+        try {
+            Object parser = baseDir != null
+                    ? parserClass.getConstructor(String[].class, File.class, Properties.class)
+                            .newInstance(args, baseDir, System.getProperties())
+                    : parserClass.getConstructor(String[].class, Properties.class)
+                            .newInstance(args, System.getProperties());
+            try {
+                parserClass.getMethod("parse", configurationClass).invoke(parser, configuration);
+            } finally {
+                parserClass.getMethod("close").invoke(parser);
+            }
+
+            Object proguard = loader.loadClass(PROGUARD_MAIN_CLASS).getConstructor(configurationClass)
+                    .newInstance(configuration);
+            proguard.getClass().getMethod("execute").invoke(proguard);
+        } catch (InvocationTargetException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static int runMain(ClassLoader loader, String mainClass, String[] args) throws Exception {
+        Method main = loader.loadClass(mainClass).getMethod("main", String[].class);
+        if (!ExitGuard.install()) {
+            throw new UnsupportedOperationException("Cannot guard System.exit of " + mainClass
+                    + " on this Java version");
+        }
+        try {
+            main.invoke(null, (Object) args);
+            return 0;
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof ExitException) {
+                return ((ExitException) e.getCause()).status;
+            }
+            throw unwrap(e);
+        } finally {
+            ExitGuard.uninstall();
+        }
+    }
+
+    private static boolean hasConfigurationApi(ClassLoader loader) {
+        try {
+            loader.loadClass("proguard.ConfigurationParser").getConstructor(String[].class, Properties.class);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private static Exception unwrap(InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    /**
+     * Thrown instead of exiting the JVM while a main method runs.
+     */
+    static class ExitException extends SecurityException {
+
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ExitException(int status) {
+            super("System.exit(" + status + ")");
+            this.status = status;
+        }
+    }
+
+    /**
+     * Security manager that only vetoes {@code System.exit}, installed while at least one main method runs.
+     */
+    @SuppressWarnings("removal")
+    static final class ExitGuard extends SecurityManager {
+
+        private static int active;
+        private static SecurityManager previous;
+
+        private final SecurityManager delegate;
+
+        private ExitGuard(SecurityManager delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * @return false if the JVM does not allow to install a security manager (Java 18 and later by default)
+         */
+        static synchronized boolean install() {
+            if (active == 0) {
+                SecurityManager current = System.getSecurityManager();
+                try {
+                    System.setSecurityManager(new ExitGuard(current));
+                } catch (UnsupportedOperationException e) {
+                    return false;
+                } catch (SecurityException e) {
+                    return false;
+                }
+                previous = current;
+            }
+            active++;
+            return true;
+        }
+
+        static synchronized void uninstall() {
+            active--;
+            if (active == 0) {
+                System.setSecurityManager(previous);
+                previous = null;
+            }
+        }
+
+        @Override
+        public void checkExit(int status) {
+            throw new ExitException(status);
+        }
+
+        @Override
+        public void checkPermission(Permission permission) {
+            if (delegate != null) {
+                delegate.checkPermission(permission);
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission permission, Object context) {
+            if (delegate != null) {
+                delegate.checkPermission(permission, context);
+            }
+        }
+    }
+}
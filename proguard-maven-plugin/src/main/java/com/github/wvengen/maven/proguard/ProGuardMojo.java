@@ -21,11 +21,10 @@
 package com.github.wvengen.maven.proguard;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URL;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,11 +37,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.archiver.MavenArchiveConfiguration;
 import org.apache.maven.archiver.MavenArchiver;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -124,8 +123,9 @@ public class ProGuardMojo extends AbstractMojo {
 	private File tempLibraryjarsDir;
 
 	/**
-	 * Specifies to copy all the {@code -libraryjars} dependencies into a temporary directory and pass that directory
-	 * as the only {@code -libraryjars} argument to ProGuard.
+	 * Specifies to link all the {@code -libraryjars} dependencies into a temporary directory and pass that directory
+	 * as the only {@code -libraryjars} argument to ProGuard. The jars are hard linked, symbolically linked or copied,
+	 * whatever the file system supports, and the directory is kept for the next run.
 	 *
 	 * @parameter default-value="false"
 	 */
@@ -176,6 +176,8 @@ public class ProGuardMojo extends AbstractMojo {
 	 */
 	private List<Exclusion> exclusions;
 
+	private FilterSet<Exclusion> exclusionFilters;
+
 	/**
 	 * Specifies the input jar name (or wars, ears, zips) of the application to be
 	 * processed.
@@ -300,6 +302,14 @@ public class ProGuardMojo extends AbstractMojo {
 	 */
 	protected MavenProject mavenProject;
 
+	/**
+	 * The current build session, used to share the in-process ProGuard class loader between modules.
+	 *
+	 * @parameter default-value="${session}"
+	 * @readonly
+	 */
+	protected MavenSession session;
+
 	/**
 	 * The plugin dependencies.
 	 *
@@ -329,6 +339,23 @@ public class ProGuardMojo extends AbstractMojo {
 	 */
 	protected MavenArchiveConfiguration archive = new MavenArchiveConfiguration();
 
+	/**
+	 * Compression level, 0 to 9, of the files of project directories merged into the {@link #assembly}. The default
+	 * -1 is the default level of {@link java.util.zip.Deflater}, currently 6. Entries of jars are copied as they are,
+	 * already compressed files like images and nested jars are stored.
+	 *
+	 * @parameter property="proguard.assemblyCompressionLevel" default-value="-1"
+	 */
+	private int assemblyCompressionLevel = -1;
+
+	/**
+	 * Number of threads compressing the files of project directories merged into the {@link #assembly}. The jar is the
+	 * same whatever the number of threads, 0 uses one thread per processor.
+	 *
+	 * @parameter property="proguard.assemblyCompressionThreads" default-value="1"
+	 */
+	private int assemblyCompressionThreads = 1;
+
 	/**
 	 * The max memory the forked Java process should use, e.g. 256m
 	 *
@@ -395,6 +422,72 @@ public class ProGuardMojo extends AbstractMojo {
 	 */
 	private boolean bindToMavenLogging;
 
+	/**
+	 * Run ProGuard in a forked JVM. If false, ProGuard runs inside the Maven JVM in a class loader that is
+	 * shared by all modules of the build, which saves the JVM start-up and class loading per module.
+	 * {@link #maxMemory} and {@link #bindToMavenLogging} only apply to the forked JVM.
+	 *
+	 * @parameter property="proguard.fork" default-value="true"
+	 */
+	private boolean fork = true;
+
+	/**
+	 * Run ProGuard in a worker JVM that stays alive between builds, so ProGuard does not start cold for every
+	 * {@code mvn} invocation. The worker is started on demand, one per ProGuard classpath and {@link #maxMemory},
+	 * and stops after {@link #workerIdleTimeout}. Takes precedence over {@link #fork}.
+	 *
+	 * @parameter property="proguard.worker" default-value="false"
+	 */
+	private boolean worker;
+
+	/**
+	 * Seconds without a request after which the ProGuard worker stops.
+	 *
+	 * @parameter property="proguard.workerIdleTimeout" default-value="1800"
+	 */
+	private int workerIdleTimeout = 1800;
+
+	/**
+	 * Directory for the state and log files of the ProGuard workers.
+	 *
+	 * @parameter property="proguard.workerDirectory" default-value="${user.home}/.m2/proguard-workers"
+	 */
+	private File workerDirectory;
+
+	/**
+	 * Skip ProGuard if all inputs are unchanged since an earlier run and restore the output jar, the mapping and the
+	 * seeds from the build cache instead. The inputs are the ProGuard arguments, the contents of every file they
+	 * name, also in the options and included configuration files, and the ProGuard version.
+	 *
+	 * @parameter property="proguard.buildCache" default-value="false"
+	 */
+	private boolean buildCache;
+
+	/**
+	 * Directory of the ProGuard build cache.
+	 *
+	 * @parameter property="proguard.buildCacheDirectory" default-value="${user.home}/.m2/proguard-cache"
+	 */
+	private File buildCacheDirectory;
+
+	/**
+	 * Maximum size of the ProGuard build cache in megabytes, the least recently used entries are deleted first.
+	 *
+	 * @parameter property="proguard.buildCacheMaxSize" default-value="1024"
+	 */
+	private long buildCacheMaxSize = 1024;
+
+	/**
+	 * Memory available to the ProGuard JVMs of all modules together, e.g. 12g. In a parallel build every forked run
+	 * reserves its {@link #maxMemory} from this budget and waits until enough is free, the largest modules first. A
+	 * worker reserves its {@link #maxMemory} once, for all modules it runs and the rest of the build. A run without
+	 * {@link #maxMemory} reserves the max heap of the Maven JVM, the default of a forked JVM. Not set, runs are not
+	 * limited.
+	 *
+	 * @parameter property="proguard.memoryBudget"
+	 */
+	private String memoryBudget;
+
 	private Log log;
 
 	/**
@@ -459,6 +552,11 @@ public class ProGuardMojo extends AbstractMojo {
 			return;
 		}
 
+		if (assemblyCompressionLevel < -1 || assemblyCompressionLevel > 9) {
+			throw new MojoExecutionException("assemblyCompressionLevel must be -1 (default) or 0 to 9, not "
+					+ assemblyCompressionLevel);
+		}
+
 		boolean mainIsJar = mavenProject.getPackaging().equals("jar");
 
 		File inJarFile = new File(outputDirectory, injar);
@@ -548,8 +646,9 @@ public class ProGuardMojo extends AbstractMojo {
 		Map<Artifact, Inclusion> libraryjars = new HashMap<Artifact, Inclusion>();
 		boolean hasInclusionLibrary = false;
 		if (assembly != null && assembly.inclusions != null) {
+			Map<Inclusion, Set<Artifact>> inclusionDependencies = getDependencies(assembly.inclusions, mavenProject);
 			for (Inclusion inc : assembly.inclusions) {
-				for (Artifact artifact : getDependencies(inc, mavenProject)) {
+				for (Artifact artifact : inclusionDependencies.get(inc)) {
 					if (inc.library) {
 						if (!injars.containsKey(artifact)) {
 							libraryjars.put(artifact, inc);
@@ -693,43 +792,18 @@ public class ProGuardMojo extends AbstractMojo {
 		}
 
 		if (!libraryJars.isEmpty()) {
-			log.debug("Copy libraryJars to temporary directory");
+			log.debug("Link libraryJars into temporary directory");
 			log.debug("Temporary directory: " + tempLibraryjarsDir);
-			if (tempLibraryjarsDir.exists()) {
-				try {
-					FileUtils.deleteDirectory(tempLibraryjarsDir);
-				} catch (IOException ignored) {
-					throw new MojoFailureException("Deleting failed libraryJars directory", ignored);
-				}
-			}
-			tempLibraryjarsDir.mkdir();
-			if (!tempLibraryjarsDir.exists()) {
-				throw new MojoFailureException(
-						"Can't create temporary libraryJars directory: " + tempLibraryjarsDir.getAbsolutePath());
+			List<File> libraryDirectories;
+			try {
+				libraryDirectories = new LibraryJarLinker(log).link(tempLibraryjarsDir, libraryJars);
+			} catch (IOException e) {
+				throw new MojoFailureException("Can't link to temporary libraryJars directory", e);
 			}
-			// Use this subdirectory for all libraries that are files, and not directories themselves
-			File commonDir = new File(tempLibraryjarsDir, "0");
-			commonDir.mkdir();
-
-			int directoryIndex = 1;
-			for (File libraryJar : libraryJars) {
-				try {
-					log.debug("Copying library: " + libraryJar);
-					if (libraryJar.isFile()) {
-						FileUtils.copyFileToDirectory(libraryJar, commonDir);
-					} else {
-						File subDir = new File(tempLibraryjarsDir, String.valueOf(directoryIndex));
-						FileUtils.copyDirectory(libraryJar, subDir);
-						args.add("-libraryjars");
-						args.add(libFileToStringWithInLibsFilter(subDir));
-					}
-				} catch (IOException e) {
-					throw new MojoFailureException("Can't copy to temporary libraryJars directory", e);
-				}
-				directoryIndex++;
+			for (File libraryDirectory : libraryDirectories) {
+				args.add("-libraryjars");
+				args.add(libFileToStringWithInLibsFilter(libraryDirectory));
 			}
-			args.add("-libraryjars");
-			args.add(libFileToStringWithInLibsFilter(commonDir));
 		}
 
 		File mappingFile = new File(outputDirectory, mappingFileName);
@@ -757,6 +831,21 @@ public class ProGuardMojo extends AbstractMojo {
 		}
 
 
+		File seedFile = new File(outputDirectory, seedFileName).getAbsoluteFile();
+		BuildCache cache = null;
+		String cacheKey = null;
+		if (buildCache) {
+			cache = new BuildCache(buildCacheDirectory, buildCacheMaxSize * 1024 * 1024, log);
+			try {
+				cacheKey = cache.key(args, mavenProject.getBasedir(), getProguardJars(this), proguardMainClass);
+			} catch (IOException e) {
+				throw new MojoExecutionException("Can't compute the ProGuard build cache key", e);
+			}
+			if (cacheKey == null) {
+				cache = null;
+			}
+		}
+
 		if(generateTemporaryConfigurationFile) {
 			log.info("building config file");
 
@@ -781,11 +870,29 @@ public class ProGuardMojo extends AbstractMojo {
 			args.add(fileToString(temporaryConfigurationFile));
 		}
 
-		log.info("execute ProGuard " + args.toString());
-		proguardMain(getProguardJars(this), args, this);
-
-		if (!libraryJars.isEmpty()) {
-			deleteFileOrDirectory(tempLibraryjarsDir);
+		if (restoreFromBuildCache(cache, cacheKey, outJarFile, mappingFile, seedFile)) {
+			log.info("ProGuard inputs unchanged, restored outputs from the build cache");
+		} else {
+			log.info("execute ProGuard " + args.toString());
+			MemoryScheduler.Reservation reservation = reserveMemory(inJarFile, libraryJars);
+			long start = System.currentTimeMillis();
+			try {
+				proguardMain(getProguardJars(this), args, this);
+			} finally {
+				if (reservation != null) {
+					reservation.close();
+					log.info("ProGuard for " + mavenProject.getArtifactId() + " waited "
+							+ reservation.getWaitMillis() + " ms for memory, ran "
+							+ (System.currentTimeMillis() - start) + " ms");
+				}
+			}
+			if (cache != null) {
+				try {
+					cache.store(cacheKey, outJarFile, mappingFile, seedFile);
+				} catch (IOException e) {
+					log.warn("Can't store ProGuard outputs in the build cache: " + e.getMessage());
+				}
+			}
 		}
 
 		if ((assembly != null) && (hasInclusionLibrary)) {
@@ -803,26 +910,36 @@ public class ProGuardMojo extends AbstractMojo {
 				throw new MojoFailureException("Can't rename " + outJarFile);
 			}
 
+			// the archiver only writes the manifest and the Maven descriptor, the jars are merged without recompression
+			File headFile = new File(outputDirectory, nameNoType(injar) + "_proguard_head.jar");
 			MavenArchiver archiver = new MavenArchiver();
 			archiver.setArchiver(jarArchiver);
-			archiver.setOutputFile(archiverFile);
+			archiver.setOutputFile(headFile);
 			archive.setAddMavenDescriptor(addMavenDescriptor);
 
 			try {
-				jarArchiver.addArchivedFileSet(baseFile);
+				archiver.createArchive(mavenProject, archive);
+
+				ZipMerger merger = new ZipMerger(log);
+				merger.setCompressionLevel(assemblyCompressionLevel);
+				merger.setThreads(assemblyCompressionThreads > 0
+						? assemblyCompressionThreads : Runtime.getRuntime().availableProcessors());
+				merger.setEntryTime(getOutputTimestamp(mavenProject));
+				merger.addArchive(headFile, new String[] { "META-INF/MANIFEST.MF" }, null);
+				merger.addArchive(baseFile, null, null);
 				for (Entry<Artifact, Inclusion> entry : libraryjars.entrySet()) {
 					File file;
 					file = getClasspathElement(entry.getKey(), mavenProject);
 					if (file.isDirectory()) {
 						getLog().info("merge project: " + entry.getKey() + " " + file);
-						jarArchiver.addDirectory(file);
+						merger.addDirectory(file);
 					} else {
 						getLog().info("merge artifact: " + entry.getKey());
 						
 						// Respect filter if set
 						String filter = entry.getValue().filter;
 						if(filter == null) {
-							jarArchiver.addArchivedFileSet(file);
+							merger.addArchive(file, null, null);
 						} else {
 						    
 						    // Filter elements must be separated int two lists
@@ -839,17 +956,19 @@ public class ProGuardMojo extends AbstractMojo {
 						    }
 
 						    // Null is important on empty includes otherwise nothing gets included
-						    jarArchiver.addArchivedFileSet(file,
+						    merger.addArchive(file,
 							    (includes.isEmpty() ? null : includes.toArray(new String[0])),
 							    (excludes.isEmpty() ? null : excludes.toArray(new String[0])));
 						}
 					}
 				}
-
-				archiver.createArchive(mavenProject, archive);
+				merger.addArchive(headFile, null, new String[] { "META-INF/MANIFEST.MF" });
+				merger.write(archiverFile);
 
 			} catch (Exception e) {
 				throw new MojoExecutionException("Unable to create jar", e);
+			} finally {
+				headFile.delete();
 			}
 
 		}
@@ -858,18 +977,7 @@ public class ProGuardMojo extends AbstractMojo {
 			log.info("Merging mapping file into " + applyMappingFile);
 
 			try {
-				FileInputStream mappingFileIn = new FileInputStream(mappingFile);
-				try {
-					applyMappingFile.getParentFile().mkdirs();
-					FileOutputStream mappingFileOut = new FileOutputStream(applyMappingFile, true);
-					try {
-						IOUtils.copy(mappingFileIn, mappingFileOut);
-					} finally {
-						mappingFileOut.close();
-					}
-				} finally {
-					mappingFileIn.close();
-				}
+				new MappingMerger(log).merge(mappingFile, applyMappingFile);
 			} catch (IOException e) {
 				throw new MojoExecutionException("Unable to merge mapping file", e);
 			}
@@ -1032,6 +1140,18 @@ public class ProGuardMojo extends AbstractMojo {
 	private void proguardMain(Collection<File> proguardJars, List<String> argsList, ProGuardMojo mojo)
 			throws MojoExecutionException {
 
+		if (mojo.worker) {
+			mojo.getLog().info("proguard jar: " + proguardJars + " (worker)");
+			ProGuardWorkerClient.execute(mojo.workerDirectory, getAllPluginArtifactDependencies(mojo), mojo.maxMemory,
+					mojo.workerIdleTimeout, mojo.proguardMainClass, argsList, mojo.mavenProject.getBasedir(),
+					mojo.silent, mojo.getLog());
+			return;
+		}
+		if (!mojo.fork) {
+			proguardInProcess(proguardJars, argsList, mojo);
+			return;
+		}
+
 		Java java = new Java();
 
 		Project antProject = new Project();
@@ -1083,6 +1203,100 @@ public class ProGuardMojo extends AbstractMojo {
 		}
 	}
 
+	/**
+	 * Reserves {@link #maxMemory} from the {@link #memoryBudget} of the session. The heap of a worker is reserved once
+	 * for all modules it runs and for the rest of the session.
+	 *
+	 * @return the reservation of a forked run, null if runs are not limited or ProGuard runs in a worker
+	 */
+	private MemoryScheduler.Reservation reserveMemory(File inJarFile, List<File> libraryJars)
+			throws MojoExecutionException {
+		if (memoryBudget == null || memoryBudget.trim().isEmpty() || (!fork && !worker)) {
+			return null;
+		}
+		long budget;
+		long memory;
+		try {
+			budget = MemoryScheduler.parseSize(memoryBudget);
+			memory = maxMemory != null ? MemoryScheduler.parseSize(maxMemory) : Runtime.getRuntime().maxMemory();
+		} catch (IllegalArgumentException e) {
+			throw new MojoExecutionException(e.getMessage(), e);
+		}
+		MemoryScheduler scheduler = MemoryScheduler.get(session, budget);
+		if (memory > scheduler.getBudget()) {
+			log.warn("ProGuard needs " + (memory >> 20) + " MB, more than the memoryBudget, it runs alone");
+		}
+		long size = inJarFile.length();
+		for (File file : libraryJars) {
+			size += file.length();
+		}
+		try {
+			if (!worker) {
+				return scheduler.reserve(memory, size);
+			}
+			// the worker runs the modules one after the other and keeps its heap between them
+			String key = ProGuardWorkerClient.workerKey(getAllPluginArtifactDependencies(this), maxMemory);
+			MemoryScheduler.Reservation reservation = scheduler.reserveShared(key, memory, size);
+			if (reservation != null) {
+				log.info("ProGuard worker waited " + reservation.getWaitMillis()
+						+ " ms for memory, its heap stays reserved for the rest of the build");
+			}
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while waiting for memory to run ProGuard", e);
+		}
+	}
+
+	private boolean restoreFromBuildCache(BuildCache cache, String cacheKey, File outJarFile, File mappingFile,
+			File seedFile) {
+		if (cache == null) {
+			return false;
+		}
+		try {
+			return cache.restore(cacheKey, outJarFile, mappingFile, seedFile);
+		} catch (IOException e) {
+			log.warn("Can't restore ProGuard outputs from the build cache: " + e.getMessage());
+			return false;
+		}
+	}
+
+	private void proguardInProcess(Collection<File> proguardJars, List<String> argsList, ProGuardMojo mojo)
+			throws MojoExecutionException {
+
+		mojo.getLog().info("proguard jar: " + proguardJars + " (in-process)");
+		if (mojo.maxMemory != null) {
+			mojo.getLog().warn("maxMemory is ignored, ProGuard runs in the Maven JVM");
+		}
+
+		ClassLoader loader = InProcessProGuard.getClassLoader(mojo.session, getAllPluginArtifactDependencies(mojo),
+				ProGuardMojo.class.getClassLoader());
+		InProcessProGuard.execute(loader, mojo.proguardMainClass, argsList, mojo.mavenProject.getBasedir(),
+				mojo.getLog());
+	}
+
+	/**
+	 * The {@code project.build.outputTimestamp} of reproducible builds, in seconds since the epoch or ISO 8601.
+	 *
+	 * @return the time in milliseconds, null if not set
+	 */
+	static Long getOutputTimestamp(MavenProject mavenProject) throws MojoExecutionException {
+		String timestamp = mavenProject.getProperties().getProperty("project.build.outputTimestamp");
+		// a single character disables it, as in the Maven Archiver
+		if (timestamp == null || timestamp.trim().length() < 2) {
+			return null;
+		}
+		timestamp = timestamp.trim();
+		try {
+			if (timestamp.matches("\\d+")) {
+				return Long.parseLong(timestamp) * 1000;
+			}
+			return OffsetDateTime.parse(timestamp).toInstant().toEpochMilli();
+		} catch (RuntimeException e) {
+			throw new MojoExecutionException("Invalid project.build.outputTimestamp " + timestamp, e);
+		}
+	}
+
 	private String nameNoType(String fileName) {
 		int extStart = fileName.lastIndexOf('.');
 		if (extStart == -1) {
@@ -1113,32 +1327,37 @@ public class ProGuardMojo extends AbstractMojo {
 		}
 	}
 
-	private Set<Artifact> getDependencies(final Inclusion inc, MavenProject mavenProject)
-			throws MojoExecutionException {
+	/**
+	 * Matches every dependency against all inclusions at once.
+	 *
+	 * @return the matching dependencies of each inclusion
+	 */
+	private Map<Inclusion, Set<Artifact>> getDependencies(List<Inclusion> inclusions, MavenProject mavenProject) {
+		Map<Inclusion, Set<Artifact>> result = new HashMap<Inclusion, Set<Artifact>>();
+		for (Inclusion inc : inclusions) {
+			result.put(inc, new HashSet<Artifact>());
+		}
+		FilterSet<Inclusion> filters = new FilterSet<Inclusion>(inclusions);
 		@SuppressWarnings("unchecked")
 		Set<Artifact> dependencies = mavenProject.getArtifacts();
-		Set<Artifact> result = new HashSet<Artifact>();
 		for (Artifact artifact : dependencies) {
-			if (inc.match(artifact)) {
-				result.add(artifact);
+			for (Inclusion inc : filters.matching(artifact)) {
+				result.get(inc).add(artifact);
 			}
 		}
-		if (result.isEmpty()) {
-			log.warn(String.format("No artifact found : %s:%s", inc.artifactId, inc.groupId));
+		for (Inclusion inc : inclusions) {
+			if (result.get(inc).isEmpty()) {
+				log.warn(String.format("No artifact found : %s:%s", inc.artifactId, inc.groupId));
+			}
 		}
 		return result;
 	}
 
 	private boolean isExclusion(Artifact artifact) {
-		if (exclusions == null) {
-			return false;
-		}
-		for (Exclusion excl : exclusions) {
-			if (excl.match(artifact)) {
-				return true;
-			}
+		if (exclusionFilters == null) {
+			exclusionFilters = new FilterSet<Exclusion>(exclusions);
 		}
-		return false;
+		return exclusionFilters.matchesAny(artifact);
 	}
 
 	private File getClasspathElement(Artifact artifact, MavenProject mavenProject) throws MojoExecutionException {
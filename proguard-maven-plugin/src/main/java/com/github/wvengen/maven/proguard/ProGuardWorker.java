@@ -0,0 +1,221 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Long-lived JVM that runs ProGuard for the {@link ProGuardWorkerClient}, so ProGuard is loaded and JIT-compiled
+ * once for many builds instead of once per module and build.
+ *
+ * <p>The worker listens on a loopback port and writes the port and a random token to its state file, only clients
+ * that can read the file can use it. Requests are handled one after the other, ProGuard keeps static state and the
+ * console streams are redirected to the client while a request runs. The worker stops after the idle timeout.
+ *
+ * <p>Protocol, strings are written as length and UTF-8 bytes:
+ * <pre>
+ * request:  token, base directory, main class, argument count, arguments
+ * response: {@link #ACCEPTED}, ({@link #OUT} line | {@link #ERR} line)*, {@link #RESULT} exit status, error message or ""
+ * </pre>
+ * The worker acknowledges a request before it runs it, a connection that ends before {@link #ACCEPTED} reached a
+ * worker that was stopping after its idle timeout or rejected the token, nothing has run.
+ * Only uses JDK classes, the worker classpath contains the ProGuard JARs and this plugin but no Maven classes.
+ */
+public final class ProGuardWorker {
+
+    static final byte ACCEPTED = 'A';
+    static final byte OUT = 'O';
+    static final byte ERR = 'E';
+    static final byte RESULT = 'R';
+
+    private ProGuardWorker() {
+    }
+
+    /**
+     * @param args the state file and the idle timeout in seconds
+     */
+    public static void main(String[] args) throws IOException {
+        File stateFile = new File(args[0]);
+        int idleTimeout = Integer.parseInt(args[1]);
+        String token = UUID.randomUUID().toString();
+        PrintStream log = System.out;
+
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(idleTimeout * 1000);
+            String state = server.getLocalPort() + " " + token;
+            writeState(stateFile, state);
+            log.println("ProGuard worker listening on port " + server.getLocalPort());
+
+            try {
+                while (true) {
+                    Socket socket;
+                    try {
+                        socket = server.accept();
+                    } catch (SocketTimeoutException e) {
+                        log.println("ProGuard worker idle for " + idleTimeout + "s, stopping");
+                        break;
+                    }
+                    try (Socket client = socket) {
+                        if (!serve(client, token, log)) {
+                            break;
+                        }
+                    } catch (IOException e) {
+                        log.println("ProGuard worker request failed: " + e);
+                    }
+                }
+            } finally {
+                // only delete our own state, a newer worker may already have replaced it
+                if (stateFile.isFile() && state.equals(new String(Files.readAllBytes(stateFile.toPath()),
+                        StandardCharsets.UTF_8))) {
+                    Files.deleteIfExists(stateFile.toPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one request.
+     *
+     * @return false if the worker should stop, e.g. after an {@link OutOfMemoryError}
+     */
+    private static boolean serve(Socket socket, String token, PrintStream log) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        if (!token.equals(readString(in))) {
+            log.println("ProGuard worker rejected a request with a wrong token");
+            return true;
+        }
+        String baseDir = readString(in);
+        String mainClass = readString(in);
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = readString(in);
+        }
+        out.writeByte(ACCEPTED);
+        out.flush();
+
+        LineForwarder stdout = new LineForwarder(out, OUT);
+        LineForwarder stderr = new LineForwarder(out, ERR);
+        PrintStream systemOut = System.out;
+        PrintStream systemErr = System.err;
+        System.setOut(new PrintStream(stdout, true, "UTF-8"));
+        System.setErr(new PrintStream(stderr, true, "UTF-8"));
+        int status;
+        String message = "";
+        boolean keepRunning = true;
+        try {
+            status = ProGuardLauncher.run(ProGuardWorker.class.getClassLoader(), mainClass, args,
+                    baseDir.isEmpty() ? null : new File(baseDir));
+        } catch (ReflectiveOperationException e) {
+            status = -1;
+            message = "Obfuscation failed ProGuard (" + mainClass + ") not found in classpath";
+        } catch (UnsupportedOperationException e) {
+            status = -1;
+            message = e.getMessage() + ", run it with fork=true";
+        } catch (Exception e) {
+            status = -1;
+            message = "Obfuscation failed: " + e.getMessage();
+            e.printStackTrace(log);
+        } catch (Error e) {
+            // after an OutOfMemoryError or a LinkageError the worker is not reliable anymore
+            status = -1;
+            message = e instanceof OutOfMemoryError
+                    ? "Obfuscation failed: ProGuard worker ran out of memory, set maxMemory"
+                    : "Obfuscation failed: " + e;
+            e.printStackTrace(log);
+            keepRunning = false;
+        } finally {
+            System.setOut(systemOut);
+            System.setErr(systemErr);
+            stdout.close();
+            stderr.close();
+        }
+
+        synchronized (out) {
+            out.writeByte(RESULT);
+            out.writeInt(status);
+            writeString(out, message);
+            out.flush();
+        }
+        log.println("ProGuard worker finished " + mainClass + " with status " + status);
+        return keepRunning;
+    }
+
+    /**
+     * Writes the state file atomically, a client never reads a half written port.
+     */
+    private static void writeState(File stateFile, String state) throws IOException {
+        File temporary = new File(stateFile.getPath() + "." + UUID.randomUUID() + ".tmp");
+        Files.write(temporary.toPath(), state.getBytes(StandardCharsets.UTF_8));
+        temporary.setReadable(false, false);
+        temporary.setReadable(true, true);
+        Files.move(temporary.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Sends every line written to it as one frame, the client logs it like the output of a forked JVM.
+     */
+    private static final class LineForwarder extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte type;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        LineForwarder(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            if (b == '\n') {
+                send();
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (line.size() > 0) {
+                send();
+            }
+        }
+
+        private void send() throws IOException {
+            synchronized (out) {
+                out.writeByte(type);
+                writeString(out, new String(line.toByteArray(), StandardCharsets.UTF_8));
+                out.flush();
+            }
+            line.reset();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Sends ProGuard runs to a {@link ProGuardWorker}, starting the worker on demand.
+ *
+ * <p>There is one worker per ProGuard classpath, Java installation and {@code maxMemory}, its state and log file are
+ * kept in the worker directory. The output of ProGuard is logged like the output of a forked JVM: standard output
+ * as info, standard error as warning, nothing if {@code silent} is set. A request that reached a worker stopping
+ * after its idle timeout, i.e. one the worker did not acknowledge, is sent once more to a newly started worker.
+ */
+public final class ProGuardWorkerClient {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int START_TIMEOUT_MILLIS = 60000;
+
+    private ProGuardWorkerClient() {
+    }
+
+    /**
+     * Runs ProGuard in the worker, starting the worker if none is running.
+     *
+     * @param baseDir directory relative file names are resolved against, the module basedir as for the forked JVM
+     */
+    public static void execute(File workerDirectory, Collection<File> classPath, String maxMemory, int idleTimeout,
+            String mainClass, List<String> args, File baseDir, boolean silent, Log log) throws MojoExecutionException {
+
+        List<String> workerClassPath = workerClassPath(classPath);
+        String key = workerKey(workerClassPath, maxMemory);
+        File stateFile = new File(workerDirectory, key + ".worker");
+        File logFile = new File(workerDirectory, key + ".log");
+
+        try {
+            Connection connection = connect(stateFile);
+            if (connection != null) {
+                try {
+                    run(connection, mainClass, args, baseDir, silent, log, logFile);
+                    return;
+                } catch (NotAcceptedException e) {
+                    // the worker hit its idle timeout while we connected, nothing has run
+                    log.debug("ProGuard worker did not accept the request, starting a new one: " + e.getCause());
+                } finally {
+                    connection.socket.close();
+                }
+            }
+            connection = start(workerDirectory, key, workerClassPath, maxMemory, idleTimeout, stateFile, logFile,
+                    connection != null ? connection.token : null, log);
+            try {
+                run(connection, mainClass, args, baseDir, silent, log, logFile);
+            } finally {
+                connection.socket.close();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("ProGuard worker failed, see " + logFile, e);
+        }
+    }
+
+    /**
+     * @throws NotAcceptedException if the connection ends before the worker acknowledged the request
+     */
+    private static void run(Connection connection, String mainClass, List<String> args, File baseDir, boolean silent,
+            Log log, File logFile) throws IOException, MojoExecutionException {
+        DataInputStream in;
+        byte accepted;
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(connection.socket.getOutputStream()));
+            ProGuardWorker.writeString(out, connection.token);
+            ProGuardWorker.writeString(out, baseDir != null ? baseDir.getAbsolutePath() : "");
+            ProGuardWorker.writeString(out, mainClass);
+            out.writeInt(args.size());
+            for (String arg : args) {
+                ProGuardWorker.writeString(out, arg);
+            }
+            out.flush();
+
+            in = new DataInputStream(new BufferedInputStream(connection.socket.getInputStream()));
+            accepted = in.readByte();
+        } catch (IOException e) {
+            throw new NotAcceptedException(e);
+        }
+        if (accepted != ProGuardWorker.ACCEPTED) {
+            throw new IOException("Unexpected ProGuard worker response " + accepted);
+        }
+
+        try {
+            while (true) {
+                byte type = in.readByte();
+                if (type == ProGuardWorker.RESULT) {
+                    int status = in.readInt();
+                    String message = ProGuardWorker.readString(in);
+                    if (!message.isEmpty()) {
+                        throw new MojoExecutionException(message);
+                    }
+                    if (status != 0) {
+                        throw new MojoExecutionException("Obfuscation failed (result=" + status + ")");
+                    }
+                    return;
+                }
+                String line = ProGuardWorker.readString(in);
+                if (silent) {
+                    continue;
+                }
+                if (type == ProGuardWorker.ERR) {
+                    log.warn(line);
+                } else {
+                    log.info(line);
+                }
+            }
+        } catch (EOFException e) {
+            throw new MojoExecutionException("ProGuard worker terminated unexpectedly, see " + logFile, e);
+        }
+    }
+
+    /**
+     * Starts a worker unless another build did it in the meantime, the lock file serializes concurrent builds.
+     *
+     * @param staleToken the token of a worker that did not accept a request, or null
+     */
+    @SuppressWarnings("try")
+    private static Connection start(File workerDirectory, String key, List<String> classPath, String maxMemory,
+            int idleTimeout, File stateFile, File logFile, String staleToken, Log log)
+            throws IOException, MojoExecutionException {
+        Files.createDirectories(workerDirectory.toPath());
+        // the file lock only excludes other JVMs, modules of a parallel build need the monitor too
+        synchronized (ProGuardWorkerClient.class) {
+            try (RandomAccessFile lockFile = new RandomAccessFile(new File(workerDirectory, key + ".lock"), "rw");
+                    FileLock lock = lockFile.getChannel().lock()) {
+                Connection connection = connect(stateFile);
+                if (connection != null && !connection.token.equals(staleToken)) {
+                    return connection;
+                }
+                if (connection != null) {
+                    // the stale worker may still listen while it stops
+                    connection.socket.close();
+                }
+                Files.deleteIfExists(stateFile.toPath());
+
+                List<String> command = new ArrayList<String>();
+                command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath());
+                if (maxMemory != null) {
+                    command.add("-Xmx" + maxMemory);
+                }
+                command.add("-cp");
+                command.add(String.join(File.pathSeparator, classPath));
+                command.add(ProGuardWorker.class.getName());
+                command.add(stateFile.getAbsolutePath());
+                command.add(String.valueOf(idleTimeout));
+
+                log.info("starting ProGuard worker, log: " + logFile);
+                Process process = new ProcessBuilder(command)
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                        .start();
+
+                long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+                while (System.currentTimeMillis() < deadline) {
+                    connection = connect(stateFile);
+                    if (connection != null) {
+                        return connection;
+                    }
+                    if (!process.isAlive()) {
+                        throw new MojoExecutionException("ProGuard worker exited with " + process.exitValue()
+                                + ", see " + logFile);
+                    }
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new MojoExecutionException("Interrupted while starting the ProGuard worker", e);
+                    }
+                }
+                process.destroy();
+                throw new MojoExecutionException("ProGuard worker did not start within "
+                        + START_TIMEOUT_MILLIS / 1000 + "s, see " + logFile);
+            }
+        }
+    }
+
+    /**
+     * @return a connection to the worker of the state file, or null if there is none or it does not answer
+     */
+    private static Connection connect(File stateFile) {
+        String[] state = readState(stateFile);
+        if (state == null) {
+            return null;
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(state[0])),
+                    CONNECT_TIMEOUT_MILLIS);
+            return new Connection(socket, state[1]);
+        } catch (IOException e) {
+            closeQuietly(socket);
+            return null;
+        } catch (NumberFormatException e) {
+            closeQuietly(socket);
+            return null;
+        }
+    }
+
+    /**
+     * @return port and token of the worker, or null if the state file does not exist
+     */
+    private static String[] readState(File stateFile) {
+        try {
+            String[] state = new String(Files.readAllBytes(stateFile.toPath()), StandardCharsets.UTF_8).trim()
+                    .split(" ");
+            return state.length == 2 ? state : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the key of the worker that runs ProGuard with this classpath and {@code maxMemory}
+     */
+    public static String workerKey(Collection<File> classPath, String maxMemory) throws MojoExecutionException {
+        return workerKey(workerClassPath(classPath), maxMemory);
+    }
+
+    private static List<String> workerClassPath(Collection<File> classPath) throws MojoExecutionException {
+        List<String> workerClassPath = new ArrayList<String>();
+        for (File file : classPath) {
+            workerClassPath.add(file.getAbsolutePath());
+        }
+        Collections.sort(workerClassPath);
+        workerClassPath.add(pluginLocation().getAbsolutePath());
+        return workerClassPath;
+    }
+
+    private static String workerKey(List<String> classPath, String maxMemory) throws MojoExecutionException {
+        StringBuilder key = new StringBuilder(System.getProperty("java.home")).append('|').append(maxMemory);
+        for (String path : classPath) {
+            File file = new File(path);
+            key.append('|').append(path).append('|').append(file.length()).append('|').append(file.lastModified());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new MojoExecutionException("SHA-1 not available", e);
+        }
+    }
+
+    /**
+     * @return the JAR or directory this plugin is loaded from, the worker needs its classes
+     */
+    private static File pluginLocation() throws MojoExecutionException {
+        try {
+            return new File(ProGuardWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new MojoExecutionException("Cannot locate the proguard-maven-plugin classes", e);
+        }
+    }
+
+    /**
+     * The connection ended before the worker acknowledged the request.
+     */
+    private static final class NotAcceptedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        NotAcceptedException(IOException cause) {
+            super(cause);
+        }
+    }
+
+    private static final class Connection {
+
+        final Socket socket;
+        final String token;
+
+        Connection(Socket socket, String token) {
+            this.socket = socket;
+            this.token = token;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.github.wvengen.maven.proguard.MappingMerger.ClassMapping;
+import com.github.wvengen.maven.proguard.MappingMerger.ClassReader;
+
+/**
+ * Binary index of a ProGuard mapping file to retrace stack traces, by obfuscated class name.
+ *
+ * <p>The index is built once from the mapping file, see the {@code retrace-index} goal, and memory-mapped for lookups,
+ * so a lookup only touches the pages of the classes it searches and the mapping is never loaded into the heap.
+ *
+ * <p>Layout: a header with the length and SHA-256 digest of the mapping file, one record per class in the order of
+ * the mapping file, a table of record offsets sorted by obfuscated class name and a trailer with the offset of the
+ * table and the number of classes. A record holds the
+ * obfuscated and original class name and for every method line its obfuscated name, obfuscated line range, original
+ * class (for inlined methods), original name and original line range.
+ */
+public class RetraceIndex implements AutoCloseable {
+
+    private static final int MAGIC = 0x50475249;
+    private static final int VERSION = 2;
+    private static final int DIGEST_SIZE = 32;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + DIGEST_SIZE;
+    private static final int TRAILER_SIZE = 8 + 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int tableOffset;
+    private final int size;
+
+    private RetraceIndex(FileChannel channel, MappedByteBuffer buffer, int tableOffset, int size) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.tableOffset = tableOffset;
+        this.size = size;
+    }
+
+    /**
+     * Builds the index of a mapping file, reading the mapping class by class.
+     *
+     * @return the number of classes
+     */
+    public static int build(File mappingFile, File indexFile) throws IOException {
+        List<String> obfuscatedNames = new ArrayList<String>();
+        List<Integer> offsets = new ArrayList<Integer>();
+        try (ClassReader reader = new ClassReader(mappingFile);
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(indexFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(mappingFile.length());
+            out.write(BuildCache.contentDigest(mappingFile.toPath()));
+            ClassMapping mapping;
+            while ((mapping = reader.next()) != null) {
+                String header = mapping.header.get(0);
+                String obfuscated = header.substring(header.indexOf(" -> ") + 4, header.length() - 1).trim();
+                obfuscatedNames.add(obfuscated);
+                offsets.add(out.size());
+                writeClass(out, obfuscated, mapping);
+                if (out.size() == Integer.MAX_VALUE) {
+                    throw new IOException("Retrace index of " + mappingFile + " exceeds 2 GB");
+                }
+            }
+
+            Integer[] order = new Integer[obfuscatedNames.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return obfuscatedNames.get(a).compareTo(obfuscatedNames.get(b));
+                }
+            });
+            long tableOffset = out.size();
+            for (Integer i : order) {
+                out.writeInt(offsets.get(i));
+            }
+            out.writeLong(tableOffset);
+            out.writeInt(order.length);
+        }
+        return obfuscatedNames.size();
+    }
+
+    private static void writeClass(DataOutputStream out, String obfuscated, ClassMapping mapping) throws IOException {
+        List<String[]> methods = new ArrayList<String[]>();
+        for (List<String> lines : mapping.members.values()) {
+            for (String line : lines) {
+                String[] method = parseMethod(line.trim());
+                if (method != null) {
+                    methods.add(method);
+                }
+            }
+        }
+        writeString(out, obfuscated);
+        writeString(out, mapping.name);
+        out.writeInt(methods.size());
+        for (String[] method : methods) {
+            writeString(out, method[0]);
+            out.writeInt(Integer.parseInt(method[1]));
+            out.writeInt(Integer.parseInt(method[2]));
+            writeString(out, method[3]);
+            writeString(out, method[4]);
+            out.writeInt(Integer.parseInt(method[5]));
+            out.writeInt(Integer.parseInt(method[6]));
+        }
+    }
+
+    /**
+     * Parses {@code [a:b:]type [class.]name(args)[:c[:d]] -> obfuscated}.
+     *
+     * @return obfuscated name, obfuscated start and end line, original class or empty, original name, original start
+     *         and end line, or null for a field
+     */
+    static String[] parseMethod(String member) {
+        int arrow = member.lastIndexOf(" -> ");
+        int open = member.indexOf('(');
+        int close = member.lastIndexOf(')', arrow);
+        if (open < 0 || close < 0 || open > arrow) {
+            return null;
+        }
+        String[] method = new String[] { member.substring(arrow + 4), "0", "0", "", null, "0", "0" };
+        String declaration = member.substring(0, open);
+        if (!declaration.isEmpty() && Character.isDigit(declaration.charAt(0))) {
+            int first = declaration.indexOf(':');
+            int second = declaration.indexOf(':', first + 1);
+            method[1] = declaration.substring(0, first);
+            method[2] = declaration.substring(first + 1, second);
+            declaration = declaration.substring(second + 1);
+        }
+        String name = declaration.substring(declaration.lastIndexOf(' ') + 1);
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            method[3] = name.substring(0, dot);
+            name = name.substring(dot + 1);
+        }
+        method[4] = name;
+        String originalLines = member.substring(close + 1, arrow);
+        if (originalLines.startsWith(":")) {
+            String[] range = originalLines.substring(1).split(":");
+            method[5] = range[0];
+            method[6] = range.length > 1 ? range[1] : range[0];
+        } else {
+            // without an original range the line numbers are unchanged
+            method[5] = method[1];
+            method[6] = method[2];
+        }
+        return method;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @return true if the index was built from the mapping file as it is, by its length and SHA-256 digest
+     */
+    public static boolean isUpToDate(File mappingFile, File indexFile) throws IOException {
+        if (!mappingFile.isFile() || !indexFile.isFile()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != mappingFile.length()) {
+                return false;
+            }
+            byte[] digest = new byte[DIGEST_SIZE];
+            in.readFully(digest);
+            return Arrays.equals(digest, BuildCache.contentDigest(mappingFile.toPath()));
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens an index written by {@link #build(File, File)}.
+     */
+    public static RetraceIndex open(File indexFile) throws IOException {
+        FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Not a retrace index: " + indexFile);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a retrace index: " + indexFile);
+            }
+            int trailer = buffer.limit() - TRAILER_SIZE;
+            return new RetraceIndex(channel, buffer, (int) buffer.getLong(trailer), buffer.getInt(trailer + 8));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the original name of an obfuscated class, or null if it is not in the mapping
+     */
+    public String originalClassName(String obfuscatedClassName) {
+        int record = find(obfuscatedClassName);
+        if (record < 0) {
+            return null;
+        }
+        ByteBuffer view = view(record);
+        skipString(view);
+        return readString(view);
+    }
+
+    /**
+     * Retraces a stack frame.
+     *
+     * @param lineNumber the line number of the frame, 0 if unknown
+     * @return the original frames, innermost inlined method first, or all methods with this obfuscated name if the
+     *         line number does not tell them apart; empty if unknown
+     */
+    public List<Frame> retrace(String obfuscatedClassName, String obfuscatedMethodName, int lineNumber) {
+        List<Frame> frames = new ArrayList<Frame>();
+        int record = find(obfuscatedClassName);
+        if (record < 0) {
+            return frames;
+        }
+        ByteBuffer view = view(record);
+        skipString(view);
+        String originalClassName = readString(view);
+        List<Frame> candidates = new ArrayList<Frame>();
+        int methods = view.getInt();
+        for (int i = 0; i < methods; i++) {
+            boolean sameName = readString(view).equals(obfuscatedMethodName);
+            int start = view.getInt();
+            int end = view.getInt();
+            String className = readString(view);
+            String name = readString(view);
+            int originalStart = view.getInt();
+            int originalEnd = view.getInt();
+            if (!sameName) {
+                continue;
+            }
+            className = className.isEmpty() ? originalClassName : className;
+            if (lineNumber > 0 && start <= lineNumber && lineNumber <= end && (start > 0 || end > 0)) {
+                int line = originalEnd > originalStart ? originalStart + lineNumber - start : originalStart;
+                frames.add(new Frame(className, name, line));
+            } else if (!contains(candidates, className, name)) {
+                candidates.add(new Frame(className, name, start == 0 && end == 0 ? lineNumber : 0));
+            }
+        }
+        return frames.isEmpty() ? candidates : frames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int find(String obfuscatedClassName) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int record = buffer.getInt(tableOffset + 4 * middle);
+            int order = readString(view(record)).compareTo(obfuscatedClassName);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer view(int offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        return view;
+    }
+
+    private static String readString(ByteBuffer view) {
+        byte[] bytes = new byte[view.getInt()];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer view) {
+        int length = view.getInt();
+        view.position(view.position() + length);
+    }
+
+    private static boolean contains(List<Frame> frames, String className, String methodName) {
+        for (Frame frame : frames) {
+            if (frame.getClassName().equals(className) && frame.getMethodName().equals(methodName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An original stack frame.
+     */
+    public static final class Frame {
+
+        private final String className;
+        private final String methodName;
+        private final int lineNumber;
+
+        Frame(String className, String methodName, int lineNumber) {
+            this.className = className;
+            this.methodName = methodName;
+            this.lineNumber = lineNumber;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        /**
+         * @return the original line number, 0 if unknown
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        @Override
+        public String toString() {
+            return className + "." + methodName + (lineNumber > 0 ? ":" + lineNumber : "");
+        }
+    }
+}
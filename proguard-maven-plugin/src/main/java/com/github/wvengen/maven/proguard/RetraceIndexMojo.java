@@ -0,0 +1,98 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+
+/**
+ * Builds a {@link RetraceIndex} of the ProGuard mapping file, to retrace stack traces without loading the mapping.
+ * Runs after the {@code proguard} goal.
+ *
+ * @goal retrace-index
+ * @phase package
+ * @description Build a retrace index of the ProGuard mapping file
+ * @threadSafe
+ */
+public class RetraceIndexMojo extends AbstractMojo {
+
+    /**
+     * Set this to 'true' to bypass ProGuard processing entirely.
+     *
+     * @parameter property="proguard.skip"
+     */
+    private boolean skip;
+
+    /**
+     * The ProGuard mapping file, see the {@code mappingFileName} of the {@code proguard} goal.
+     *
+     * @parameter default-value="${project.build.directory}/proguard_map.txt"
+     */
+    private File mappingFile;
+
+    /**
+     * The retrace index to write.
+     *
+     * @parameter default-value="${project.build.directory}/proguard_retrace.idx"
+     */
+    private File retraceIndexFile;
+
+    /**
+     * Specifies whether to attach the retrace index to the project.
+     *
+     * @parameter default-value="true"
+     */
+    private boolean attach;
+
+    /**
+     * Classifier of the attached retrace index.
+     *
+     * @parameter default-value="retrace"
+     */
+    private String attachClassifier;
+
+    /**
+     * The Maven project reference where the plugin is currently being executed.
+     *
+     * @parameter property="project"
+     * @readonly
+     * @required
+     */
+    protected MavenProject mavenProject;
+
+    /**
+     * @component
+     */
+    private MavenProjectHelper projectHelper;
+
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Bypass ProGuard retrace index");
+            return;
+        }
+        if (!mappingFile.isFile()) {
+            getLog().warn("Cannot build retrace index because the mapping file does not exist: " + mappingFile);
+            return;
+        }
+        try {
+            if (RetraceIndex.isUpToDate(mappingFile, retraceIndexFile)) {
+                getLog().info("Retrace index is up to date: " + retraceIndexFile);
+            } else {
+                long start = System.currentTimeMillis();
+                retraceIndexFile.getParentFile().mkdirs();
+                int classes = RetraceIndex.build(mappingFile, retraceIndexFile);
+                getLog().info("Built retrace index of " + classes + " classes in "
+                        + (System.currentTimeMillis() - start) + " ms: " + retraceIndexFile);
+            }
+        } catch (IOException e) {
+            retraceIndexFile.delete();
+            throw new MojoExecutionException("Unable to build retrace index of " + mappingFile, e);
+        }
+        if (attach) {
+            projectHelper.attachArtifact(mavenProject, "idx", attachClassifier, retraceIndexFile);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Merges archives and directories into one jar, used for the {@code assembly} instead of re-archiving every entry.
+ *
+ * <p>Entries of archives are copied byte for byte, still compressed, only files of directories are compressed. The
+ * central directory is written once at the end. As with the Plexus archiver the first entry of a name wins, later
+ * duplicates are skipped. Includes and excludes are Ant-style patterns as in {@link Inclusion#filter}.
+ *
+ * <p>Files of directories are deflated into buffers, with several threads if configured, and written in sorted order,
+ * so the jar is the same byte for byte whatever the number of threads. Files that are already compressed, e.g. images
+ * and nested archives, are stored. With an entry time set, e.g. from {@code project.build.outputTimestamp}, the jar
+ * does not depend on file modification times either.
+ */
+public class ZipMerger {
+
+    /**
+     * Extensions of files that do not get smaller when deflated again.
+     */
+    private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<String>(Arrays.asList("png", "jpg", "jpeg",
+            "gif", "webp", "jar", "zip", "war", "ear", "aar", "apk", "gz", "tgz", "bz2", "xz", "7z", "jmod"));
+
+    private final Log log;
+
+    private final List<Source> sources = new ArrayList<Source>();
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int threads = 1;
+    private Long entryTime;
+
+    public ZipMerger(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * @param compressionLevel 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @param threads number of threads deflating files of directories, 1 compresses on the calling thread
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param entryTime modification time for the entries of directories in milliseconds, null for the file times
+     */
+    public void setEntryTime(Long entryTime) {
+        this.entryTime = entryTime;
+    }
+
+    /**
+     * Adds the entries of an archive.
+     *
+     * @param includes patterns of the entries to add, null for all
+     * @param excludes patterns of the entries to skip, may be null
+     */
+    public void addArchive(File archive, String[] includes, String[] excludes) {
+        sources.add(new Source(archive, false, includes, excludes));
+    }
+
+    /**
+     * Adds the files of a directory, e.g. the classes of a reactor module.
+     */
+    public void addDirectory(File directory) {
+        sources.add(new Source(directory, true, null, null));
+    }
+
+    /**
+     * Writes the merged jar.
+     *
+     * @return the number of skipped duplicate entries
+     */
+    public int write(File target) throws IOException {
+        Set<String> names = new HashSet<String>();
+        int duplicates = 0;
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(target)) {
+            for (Source source : sources) {
+                duplicates += source.directory
+                        ? writeDirectory(source, out, names, executor)
+                        : writeArchive(source, out, names);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        if (duplicates > 0) {
+            log.debug("Skipped " + duplicates + " duplicate entries while merging " + target);
+        }
+        return duplicates;
+    }
+
+    private int writeArchive(Source source, ZipArchiveOutputStream out, Set<String> names) throws IOException {
+        int duplicates = 0;
+        try (ZipFile zip = ZipFile.builder().setFile(source.file).get()) {
+            Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                if (!source.isIncluded(entry.getName())) {
+                    continue;
+                }
+                if (!names.add(entry.getName())) {
+                    duplicates++;
+                    continue;
+                }
+                try (InputStream raw = zip.getRawInputStream(entry)) {
+                    out.addRawArchiveEntry(entry, raw);
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    private int writeDirectory(Source source, ZipArchiveOutputStream out, Set<String> names,
+            ExecutorService executor) throws IOException {
+        Path root = source.file.toPath();
+        List<Path> paths = new ArrayList<Path>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(path -> !path.equals(root)).forEach(paths::add);
+        }
+        Collections.sort(paths);
+
+        int duplicates = 0;
+        // bounded number of buffers in flight, written in the order they were submitted
+        Deque<Future<Compressed>> pending = new ArrayDeque<Future<Compressed>>();
+        for (final Path path : paths) {
+            final boolean isDirectory = Files.isDirectory(path);
+            final String name = root.relativize(path).toString().replace('\\', '/') + (isDirectory ? "/" : "");
+            if (!names.add(name)) {
+                duplicates++;
+                continue;
+            }
+            Callable<Compressed> task = new Callable<Compressed>() {
+                @Override
+                public Compressed call() throws IOException {
+                    return compress(path, name, isDirectory);
+                }
+            };
+            if (executor != null) {
+                pending.add(executor.submit(task));
+            } else {
+                FutureTask<Compressed> future = new FutureTask<Compressed>(task);
+                future.run();
+                pending.add(future);
+            }
+            if (pending.size() >= threads * 4) {
+                writeNext(pending, out);
+            }
+        }
+        while (!pending.isEmpty()) {
+            writeNext(pending, out);
+        }
+        return duplicates;
+    }
+
+    private static void writeNext(Deque<Future<Compressed>> pending, ZipArchiveOutputStream out) throws IOException {
+        Compressed compressed;
+        try {
+            compressed = pending.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        out.addRawArchiveEntry(compressed.entry, new ByteArrayInputStream(compressed.data));
+    }
+
+    /**
+     * Deflates or stores a file into a buffer.
+     */
+    private Compressed compress(Path path, String name, boolean isDirectory) throws IOException {
+        byte[] content = isDirectory ? new byte[0] : Files.readAllBytes(path);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setSize(content.length);
+        entry.setCrc(crc.getValue());
+        entry.setTime(entryTime != null ? entryTime : Files.getLastModifiedTime(path).toMillis());
+        if (isDirectory || compressionLevel == Deflater.NO_COMPRESSION || isCompressed(name)) {
+            entry.setMethod(ZipArchiveEntry.STORED);
+            entry.setCompressedSize(content.length);
+            return new Compressed(entry, content);
+        }
+
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+            try (DeflaterOutputStream deflate = new DeflaterOutputStream(compressed, deflater)) {
+                deflate.write(content);
+            }
+            entry.setMethod(ZipArchiveEntry.DEFLATED);
+            entry.setCompressedSize(compressed.size());
+            return new Compressed(entry, compressed.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static boolean isCompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static final class Compressed {
+
+        final ZipArchiveEntry entry;
+        final byte[] data;
+
+        Compressed(ZipArchiveEntry entry, byte[] data) {
+            this.entry = entry;
+            this.data = data;
+        }
+    }
+
+    private static final class Source {
+
+        final File file;
+        final boolean directory;
+        final String[] includes;
+        final String[] excludes;
+
+        Source(File file, boolean directory, String[] includes, String[] excludes) {
+            this.file = file;
+            this.directory = directory;
+            this.includes = normalize(includes);
+            this.excludes = normalize(excludes);
+        }
+
+        boolean isIncluded(String name) {
+            if (includes != null && !matchesAny(includes, name)) {
+                return false;
+            }
+            return excludes == null || !matchesAny(excludes, name);
+        }
+
+        private static boolean matchesAny(String[] patterns, String name) {
+            for (String pattern : patterns) {
+                if (SelectorUtils.matchPath(pattern, name, true)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * A pattern ending with a slash stands for everything below, as in Ant file sets.
+         */
+        private static String[] normalize(String[] patterns) {
+            if (patterns == null) {
+                return null;
+            }
+            String[] normalized = new String[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                String pattern = patterns[i].trim().replace('\\', '/');
+                normalized[i] = pattern.endsWith("/") ? pattern + "**" : pattern;
+            }
+            return normalized;
+        }
+    }
+}
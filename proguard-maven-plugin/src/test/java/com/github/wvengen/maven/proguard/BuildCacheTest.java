@@ -0,0 +1,126 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BuildCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keyDependsOnInputContents() throws Exception {
+        File injar = write("in.jar", "classes");
+        File outjar = new File(folder.getRoot(), "out.jar");
+        BuildCache cache = new BuildCache(folder.newFolder("cache"), Long.MAX_VALUE, new SystemStreamLog());
+
+        String key = cache.key(args(injar, outjar), null, Collections.<File>emptyList(), "proguard.ProGuard");
+        Assert.assertEquals(key, cache.key(args(injar, outjar), null, Collections.<File>emptyList(), "proguard.ProGuard"));
+
+        write("out.jar", "output is not an input");
+        Assert.assertEquals(key, cache.key(args(injar, outjar), null, Collections.<File>emptyList(), "proguard.ProGuard"));
+
+        write("in.jar", "changed classes");
+        Assert.assertNotEquals(key, cache.key(args(injar, outjar), null, Collections.<File>emptyList(), "proguard.ProGuard"));
+    }
+
+    @Test
+    public void keyDependsOnFilesNamedInOptions() throws Exception {
+        write("lib.jar", "library");
+        write("dictionary.txt", "a b c");
+        File include = write("extra.pro", "# unquoted, relative to this file\n-obfuscationdictionary dictionary.txt\n");
+        List<String> args = Arrays.asList("-libraryjars lib.jar(!META-INF/**)", "@" + include.getName(),
+                "-keep public class * { public *; }");
+        BuildCache cache = new BuildCache(folder.newFolder("cache"), Long.MAX_VALUE, new SystemStreamLog());
+
+        String key = cache.key(args, folder.getRoot(), Collections.<File>emptyList(), "proguard.ProGuard");
+        Assert.assertEquals(key, cache.key(args, folder.getRoot(), Collections.<File>emptyList(), "proguard.ProGuard"));
+
+        write("lib.jar", "changed library");
+        String changedLibrary = cache.key(args, folder.getRoot(), Collections.<File>emptyList(), "proguard.ProGuard");
+        Assert.assertNotEquals(key, changedLibrary);
+
+        write("dictionary.txt", "x y z");
+        Assert.assertNotEquals(changedLibrary,
+                cache.key(args, folder.getRoot(), Collections.<File>emptyList(), "proguard.ProGuard"));
+    }
+
+    @Test
+    public void keyIsNullForUnresolvableFileNames() throws Exception {
+        BuildCache cache = new BuildCache(folder.newFolder("cache"), Long.MAX_VALUE, new SystemStreamLog());
+
+        Assert.assertNull(cache.key(Arrays.asList("-libraryjars", "<no.such.property>/rt.jar"), folder.getRoot(),
+                Collections.<File>emptyList(), "proguard.ProGuard"));
+    }
+
+    @Test
+    public void splitsWordsAndFileNamesLikeProGuard() {
+        Assert.assertEquals(Arrays.asList("-injars", "'a b.jar'(!META-INF/**, **.class)", "-keep", "class", "*"),
+                BuildCache.words("-injars 'a b.jar'(!META-INF/**, **.class) # comment\n-keep class *"));
+        Assert.assertEquals(Arrays.asList("a b.jar", "lib/c.jar"),
+                BuildCache.fileNames("'a b.jar'(!META-INF/**)" + File.pathSeparator + "lib/c.jar(**.class)"));
+    }
+
+    @Test
+    public void restoresStoredOutputs() throws Exception {
+        File outjar = write("out.jar", "obfuscated");
+        File mapping = write("mapping.txt", "a -> b");
+        File seeds = new File(folder.getRoot(), "seeds.txt");
+        BuildCache cache = new BuildCache(folder.newFolder("cache"), Long.MAX_VALUE, new SystemStreamLog());
+
+        Assert.assertFalse(cache.restore("key", outjar, mapping, seeds));
+        cache.store("key", outjar, mapping, seeds);
+        write("out.jar", "stale");
+        write("seeds.txt", "stale");
+        long stored = System.currentTimeMillis() - 60000;
+        Assert.assertTrue(new File(folder.getRoot(), "cache/key/mapping").setLastModified(stored));
+
+        Assert.assertTrue(cache.restore("key", outjar, mapping, seeds));
+        Assert.assertEquals("obfuscated", read(outjar));
+        Assert.assertEquals("a -> b", read(mapping));
+        Assert.assertTrue(mapping.lastModified() > stored);
+        Assert.assertFalse(seeds.exists());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        File outjar = write("out.jar", "0123456789");
+        File missing = new File(folder.getRoot(), "missing");
+        File directory = folder.newFolder("cache");
+        BuildCache cache = new BuildCache(directory, 25, new SystemStreamLog());
+
+        cache.store("first", outjar, missing, missing);
+        cache.store("second", outjar, missing, missing);
+        new File(directory, "first").setLastModified(System.currentTimeMillis() - 60000);
+        new File(directory, "second").setLastModified(System.currentTimeMillis() - 30000);
+        cache.store("third", outjar, missing, missing);
+
+        Assert.assertFalse(new File(directory, "first").exists());
+        Assert.assertTrue(new File(directory, "second").exists());
+        Assert.assertTrue(new File(directory, "third").exists());
+    }
+
+    private static List<String> args(File injar, File outjar) {
+        return Arrays.asList("-injars", "'" + injar + "'(!META-INF/maven/**)", "-outjars", "'" + outjar + "'");
+    }
+
+    private File write(String name, String content) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChildFirstClassLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void childClassWinsOverParent() throws Exception {
+        try (ChildFirstClassLoader loader = new ChildFirstClassLoader(new URL[] { copyClass(ArtifactFilter.class) },
+                getClass().getClassLoader())) {
+            Class<?> loaded = loader.loadClass(ArtifactFilter.class.getName());
+            Assert.assertSame(loader, loaded.getClassLoader());
+            Assert.assertNotSame(ArtifactFilter.class, loaded);
+        }
+    }
+
+    @Test
+    public void missingClassComesFromParent() throws Exception {
+        try (ChildFirstClassLoader loader = new ChildFirstClassLoader(new URL[] { copyClass(ArtifactFilter.class) },
+                getClass().getClassLoader())) {
+            Assert.assertSame(Exclusion.class, loader.loadClass(Exclusion.class.getName()));
+            Assert.assertSame(String.class, loader.loadClass(String.class.getName()));
+        }
+    }
+
+    private URL copyClass(Class<?> type) throws Exception {
+        String resource = type.getName().replace('.', '/') + ".class";
+        File target = new File(folder.getRoot(), resource);
+        Files.createDirectories(target.getParentFile().toPath());
+        try (InputStream in = type.getClassLoader().getResourceAsStream(resource)) {
+            Files.copy(in, target.toPath());
+        }
+        return folder.getRoot().toURI().toURL();
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.wvengen.maven.proguard;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FilterSetTest {
+
+    private final Inclusion exact = inclusion("com.mahifx", "libA");
+    private final Inclusion prefix = inclusion("com.mahifx.*", "*");
+    private final Inclusion shortPrefix = inclusion("com.*", "lib*");
+    private final Inclusion infix = inclusion("com.*.sub", "libA");
+    private final Inclusion any = inclusion("*", "libB");
+
+    private final FilterSet<Inclusion> filters = new FilterSet<Inclusion>(
+            Arrays.asList(exact, prefix, shortPrefix, infix, any));
+
+    @Test
+    public void returnsAllMatchingFiltersInOrder() {
+        Assert.assertEquals(Arrays.asList(exact, shortPrefix), filters.matching(getArtifact("com.mahifx", "libA")));
+        Assert.assertEquals(Arrays.asList(prefix, shortPrefix, infix),
+                filters.matching(getArtifact("com.mahifx.sub", "libA")));
+        Assert.assertEquals(Arrays.asList(shortPrefix, any), filters.matching(getArtifact("com.other", "libB")));
+        Assert.assertEquals(Collections.singletonList(any), filters.matching(getArtifact("org.other", "libB")));
+    }
+
+    @Test
+    public void agreesWithArtifactFilter() {
+        List<Inclusion> all = Arrays.asList(exact, prefix, shortPrefix, infix, any);
+        for (String groupId : Arrays.asList("com", "com.", "com.mahifx", "com.mahifx.sub", "com.x.sub", "org")) {
+            for (String artifactId : Arrays.asList("libA", "libB", "other")) {
+                Artifact artifact = getArtifact(groupId, artifactId);
+                for (Inclusion inclusion : all) {
+                    Assert.assertEquals(groupId + ":" + artifactId + " " + inclusion, inclusion.match(artifact),
+                            filters.matching(artifact).contains(inclusion));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesAny() {
+        Assert.assertTrue(filters.matchesAny(getArtifact("org.other", "libB")));
+        Assert.assertFalse(filters.matchesAny(getArtifact("org.other", "libA")));
+        Assert.assertFalse(new FilterSet<Exclusion>(null).matchesAny(getArtifact("org.other", "libA")));
+    }
+
+    @Test
+    public void recompilesChangedFilter() {
+        Exclusion exclusion = new Exclusion();
+        exclusion.groupId = "com.mahifx";
+        exclusion.artifactId = "libA";
+        Assert.assertTrue(exclusion.match(getArtifact("com.mahifx", "libA")));
+        exclusion.artifactId = "libB";
+        Assert.assertFalse(exclusion.match(getArtifact("com.mahifx", "libA")));
+    }
+
+    private static Inclusion inclusion(String groupId, String artifactId) {
+        Inclusion inclusion = new Inclusion();
+        inclusion.groupId = groupId;
+        inclusion.artifactId = artifactId;
+        return inclusion;
+    }
+
+    private static DefaultArtifact getArtifact(String groupId, String artifactId) {
+        return new DefaultArtifact(groupId, artifactId, VersionRange.createFromVersion("1.0.0"), "compile", "jar", null, new DefaultArtifactHandler());
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LibraryJarLinkerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void linksFilesAndDirectories() throws Exception {
+        File jar = write("repo/a.jar", "a");
+        File classes = folder.newFolder("module", "classes");
+        write("module/classes/A.class", "class");
+        File tempDir = new File(folder.getRoot(), "tempLibraryjars");
+
+        List<File> directories = new LibraryJarLinker(new SystemStreamLog()).link(tempDir, Arrays.asList(jar, classes));
+
+        Assert.assertEquals(Arrays.asList(new File(tempDir, "2"), new File(tempDir, "0")), directories);
+        Assert.assertEquals("a", read(new File(tempDir, "0/a.jar")));
+        Assert.assertEquals("class", read(new File(tempDir, "2/A.class")));
+    }
+
+    @Test
+    public void reusesDirectoryUntilALibraryChanges() throws Exception {
+        File jar = write("repo/a.jar", "a");
+        File tempDir = new File(folder.getRoot(), "tempLibraryjars");
+        LibraryJarLinker linker = new LibraryJarLinker(new SystemStreamLog());
+
+        linker.link(tempDir, Arrays.asList(jar));
+        File marker = new File(tempDir, "0/marker");
+        Assert.assertTrue(marker.createNewFile());
+
+        linker.link(tempDir, Arrays.asList(jar));
+        Assert.assertTrue(marker.exists());
+
+        write("repo/a.jar", "changed");
+        linker.link(tempDir, Arrays.asList(jar));
+        Assert.assertFalse(marker.exists());
+        Assert.assertEquals("changed", read(new File(tempDir, "0/a.jar")));
+    }
+
+    private File write(String name, String content) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappingMergerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MappingMerger merger = new MappingMerger(new SystemStreamLog());
+
+    @Test
+    public void latestMappingWinsAndResultIsSorted() throws Exception {
+        File target = new File(folder.getRoot(), "mappings/applymapping.txt");
+        merger.merge(write("first.txt",
+                "p.B -> a.b:",
+                "    int count -> a",
+                "    1:5:void run(int):10:14 -> a",
+                "    6:6:void p.C.inlined():3:3 -> a",
+                "    6:6:void run(int):15 -> a",
+                "p.A -> a.a:",
+                "    java.lang.String name -> a"), target);
+        merger.merge(write("second.txt",
+                "p.B -> b.b:",
+                "    1:3:void run(int):10:12 -> b",
+                "    void stop() -> c"), target);
+
+        Assert.assertEquals(Arrays.asList(
+                "p.A -> a.a:",
+                "    java.lang.String name -> a",
+                "p.B -> b.b:",
+                "    int count -> a",
+                "    1:3:void run(int):10:12 -> b",
+                "    void stop() -> c"), lines(target));
+
+        try (MappingIndex index = MappingIndex.open(target)) {
+            Assert.assertEquals(2, index.size());
+            Assert.assertEquals(Arrays.asList("p.A -> a.a:", "    java.lang.String name -> a"), index.lookup("p.A"));
+            Assert.assertEquals("p.B -> b.b:", index.lookup("p.B").get(0));
+            Assert.assertNull(index.lookup("p.C"));
+        }
+    }
+
+    @Test
+    public void overloadsWithTheSameObfuscatedNameAreKeptOnce() throws Exception {
+        File target = new File(folder.getRoot(), "applymapping.txt");
+        merger.merge(write("first.txt",
+                "p.A -> a.a:",
+                "    1:2:void foo(int):10:11 -> a",
+                "    3:4:void bar(java.lang.String):20:21 -> a"), target);
+        merger.merge(write("second.txt",
+                "p.A -> a.a:",
+                "    1:2:void baz(long):30:31 -> a",
+                "    3:4:void foo(int):10:11 -> a",
+                "    5:6:void bar(java.lang.String):20:21 -> a"), target);
+        merger.merge(write("third.txt",
+                "p.A -> a.a:",
+                "    1:2:void baz(long):30:31 -> a",
+                "    3:4:void foo(int):10:11 -> a",
+                "    5:6:void bar(java.lang.String):20:21 -> a"), target);
+
+        Assert.assertEquals(Arrays.asList(
+                "p.A -> a.a:",
+                "    5:6:void bar(java.lang.String):20:21 -> a",
+                "    1:2:void baz(long):30:31 -> a",
+                "    3:4:void foo(int):10:11 -> a"), lines(target));
+    }
+
+    @Test
+    public void compactsAppendedMappingFile() throws Exception {
+        File target = write("applymapping.txt",
+                "p.B -> a.b:",
+                "    int count -> a",
+                "p.B -> b.b:",
+                "    int count -> b",
+                "    int total -> c");
+        merger.merge(write("update.txt", "p.A -> a.a:"), target);
+
+        Assert.assertEquals(Arrays.asList(
+                "p.A -> a.a:",
+                "p.B -> b.b:",
+                "    int count -> b",
+                "    int total -> c"), lines(target));
+        Assert.assertTrue(MappingIndex.isValid(target));
+
+        Files.write(target.toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        Assert.assertFalse(MappingIndex.isValid(target));
+    }
+
+    private File write(String name, String... lines) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> lines(File file) throws Exception {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.wvengen.maven.proguard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemorySchedulerTest {
+
+    @Test
+    public void parsesSizes() {
+        Assert.assertEquals(512L << 20, MemoryScheduler.parseSize("512m"));
+        Assert.assertEquals(4L << 30, MemoryScheduler.parseSize("4G"));
+        Assert.assertEquals(1024, MemoryScheduler.parseSize("1024"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidSize() {
+        MemoryScheduler.parseSize("4 gigabytes");
+    }
+
+    @Test
+    public void startsLargestWaitingRunFirst() throws Exception {
+        final MemoryScheduler scheduler = new MemoryScheduler(4);
+        MemoryScheduler.Reservation running = scheduler.reserve(3, 0);
+
+        final List<Long> started = Collections.synchronizedList(new ArrayList<Long>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (final long size : new long[] { 10, 30, 20 }) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        MemoryScheduler.Reservation reservation = scheduler.reserve(3, size);
+                        started.add(size);
+                        reservation.close();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            thread.start();
+            waitUntilWaiting(thread);
+            threads.add(thread);
+        }
+        Assert.assertTrue(started.isEmpty());
+
+        running.close();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        Assert.assertEquals(Arrays.asList(30L, 20L, 10L), started);
+    }
+
+    @Test
+    public void smallRunsDoNotOvertakeAWaitingLargeRun() throws Exception {
+        MemoryScheduler scheduler = new MemoryScheduler(4);
+        MemoryScheduler.Reservation running = scheduler.reserve(1, 0);
+
+        List<Long> started = Collections.synchronizedList(new ArrayList<Long>());
+        Thread large = start(scheduler, 4, 100, started);
+        waitUntilWaiting(large);
+        // fits into the free memory, but would hold back the large run
+        Thread small = start(scheduler, 1, 1, started);
+        waitUntilWaiting(small);
+        Assert.assertTrue(started.isEmpty());
+
+        running.close();
+        large.join(10000);
+        small.join(10000);
+        Assert.assertEquals(Arrays.asList(100L, 1L), started);
+    }
+
+    @Test
+    public void sharedJvmReservesItsMemoryOnce() throws Exception {
+        MemoryScheduler scheduler = new MemoryScheduler(4);
+        MemoryScheduler.Reservation worker = scheduler.reserveShared("worker", 3, 10);
+        Assert.assertNotNull(worker);
+        worker.close();
+        Assert.assertNull(scheduler.reserveShared("worker", 3, 20));
+
+        List<Long> started = Collections.synchronizedList(new ArrayList<Long>());
+        MemoryScheduler.Reservation running = scheduler.reserve(1, 0);
+        Thread waiting = start(scheduler, 2, 1, started);
+        waitUntilWaiting(waiting);
+        Assert.assertTrue(started.isEmpty());
+
+        // only the worker is left, its memory is not released during the session
+        running.close();
+        waiting.join(10000);
+        Assert.assertEquals(Arrays.asList(1L), started);
+    }
+
+    @Test
+    public void runLargerThanBudgetRunsAlone() throws Exception {
+        MemoryScheduler scheduler = new MemoryScheduler(4);
+        MemoryScheduler.Reservation reservation = scheduler.reserve(8, 0);
+        Assert.assertEquals(0, reservation.getWaitMillis(), 100);
+        reservation.close();
+        scheduler.reserve(4, 0).close();
+    }
+
+    private static Thread start(final MemoryScheduler scheduler, final long memory, final long size,
+            final List<Long> started) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    MemoryScheduler.Reservation reservation = scheduler.reserve(memory, size);
+                    started.add(size);
+                    reservation.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void waitUntilWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RetraceIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void retracesClassesAndFrames() throws Exception {
+        File mapping = folder.newFile("proguard_map.txt");
+        Files.write(mapping.toPath(), Arrays.asList(
+                "p.Service -> b:",
+                "    int count -> a",
+                "    1:5:void run(int):10:14 -> a",
+                "    6:6:void p.Util.check():3:3 -> a",
+                "    6:6:void run(int):15 -> a",
+                "    void stop() -> b",
+                "    void start() -> b",
+                "p.Main -> a:",
+                "    7:9:void main(java.lang.String[]) -> a"), StandardCharsets.UTF_8);
+        File indexFile = new File(folder.getRoot(), "proguard_retrace.idx");
+
+        Assert.assertEquals(2, RetraceIndex.build(mapping, indexFile));
+        try (RetraceIndex index = RetraceIndex.open(indexFile)) {
+            Assert.assertEquals("p.Service", index.originalClassName("b"));
+            Assert.assertEquals("p.Main", index.originalClassName("a"));
+            Assert.assertNull(index.originalClassName("c"));
+
+            Assert.assertEquals("[p.Service.run:12]", index.retrace("b", "a", 3).toString());
+            Assert.assertEquals("[p.Util.check:3, p.Service.run:15]", index.retrace("b", "a", 6).toString());
+            Assert.assertEquals("[p.Main.main:8]", index.retrace("a", "a", 8).toString());
+            Assert.assertEquals("[p.Service.start, p.Service.stop]", index.retrace("b", "b", 0).toString());
+            Assert.assertEquals(Collections.emptyList(), index.retrace("c", "a", 1));
+        }
+    }
+
+    @Test
+    public void detectsChangedMappingWhateverItsModificationTime() throws Exception {
+        File mapping = folder.newFile("proguard_map.txt");
+        Files.write(mapping.toPath(), Arrays.asList("p.A -> a:", "p.B -> b:"), StandardCharsets.UTF_8);
+        File indexFile = new File(folder.getRoot(), "proguard_retrace.idx");
+        RetraceIndex.build(mapping, indexFile);
+        Assert.assertTrue(RetraceIndex.isUpToDate(mapping, indexFile));
+
+        // same length, older modification time, e.g. restored from the build cache
+        Files.write(mapping.toPath(), Arrays.asList("p.B -> a:", "p.A -> b:"), StandardCharsets.UTF_8);
+        Assert.assertTrue(mapping.setLastModified(indexFile.lastModified() - 60000));
+        Assert.assertFalse(RetraceIndex.isUpToDate(mapping, indexFile));
+
+        RetraceIndex.build(mapping, indexFile);
+        try (RetraceIndex index = RetraceIndex.open(indexFile)) {
+            Assert.assertEquals("p.B", index.originalClassName("a"));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.wvengen.maven.proguard;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ZipMergerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void firstEntryWinsAndFiltersApply() throws Exception {
+        File first = zip("first.jar", "a/A.class", "first", "META-INF/MANIFEST.MF", "first manifest");
+        File second = zip("second.jar", "a/A.class", "second", "b/B.class", "b", "b/internal/C.class", "c",
+                "META-INF/MANIFEST.MF", "second manifest");
+        File target = new File(folder.getRoot(), "merged.jar");
+
+        ZipMerger merger = new ZipMerger(new SystemStreamLog());
+        merger.addArchive(first, null, null);
+        merger.addArchive(second, new String[] { "a/**", "b/**" }, new String[] { "b/internal/" });
+        Assert.assertEquals(1, merger.write(target));
+
+        try (ZipFile zip = new ZipFile(target)) {
+            Assert.assertEquals(Arrays.asList("a/A.class", "META-INF/MANIFEST.MF", "b/B.class"), names(zip));
+            Assert.assertEquals("first", read(zip, "a/A.class"));
+            Assert.assertEquals("b", read(zip, "b/B.class"));
+        }
+    }
+
+    @Test
+    public void keepsCompressedEntriesAsTheyAre() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("compressible ");
+        }
+        File source = zip("source.jar", "big.txt", content.toString());
+        File target = new File(folder.getRoot(), "merged.jar");
+
+        ZipMerger merger = new ZipMerger(new SystemStreamLog());
+        merger.addArchive(source, null, null);
+        merger.write(target);
+
+        try (ZipFile in = new ZipFile(source); ZipFile out = new ZipFile(target)) {
+            Assert.assertEquals(in.getEntry("big.txt").getCompressedSize(), out.getEntry("big.txt").getCompressedSize());
+            Assert.assertEquals(in.getEntry("big.txt").getCrc(), out.getEntry("big.txt").getCrc());
+            Assert.assertEquals(content.toString(), read(out, "big.txt"));
+        }
+    }
+
+    @Test
+    public void addsDirectories() throws Exception {
+        File classes = folder.newFolder("classes");
+        Files.createDirectories(new File(classes, "p").toPath());
+        Files.write(new File(classes, "p/P.class").toPath(), "p".getBytes(StandardCharsets.UTF_8));
+        File target = new File(folder.getRoot(), "merged.jar");
+
+        ZipMerger merger = new ZipMerger(new SystemStreamLog());
+        merger.addDirectory(classes);
+        merger.write(target);
+
+        try (ZipFile zip = new ZipFile(target)) {
+            Assert.assertEquals(Arrays.asList("p/", "p/P.class"), names(zip));
+            Assert.assertEquals("p", read(zip, "p/P.class"));
+        }
+    }
+
+    @Test
+    public void sameBytesWhateverTheNumberOfThreads() throws Exception {
+        File classes = folder.newFolder("classes");
+        for (int i = 0; i < 50; i++) {
+            File file = new File(classes, "p" + (i % 5) + "/C" + i + ".class");
+            Files.createDirectories(file.getParentFile().toPath());
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j <= i * 20; j++) {
+                content.append("class ").append(j);
+            }
+            Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(new File(classes, "icon.png").toPath(), "png".getBytes(StandardCharsets.UTF_8));
+
+        byte[] sequential = Files.readAllBytes(merge(classes, 1).toPath());
+        byte[] parallel = Files.readAllBytes(merge(classes, 4).toPath());
+        Assert.assertArrayEquals(sequential, parallel);
+
+        try (ZipFile zip = new ZipFile(merge(classes, 4))) {
+            Assert.assertEquals(ZipEntry.STORED, zip.getEntry("icon.png").getMethod());
+            Assert.assertEquals(ZipEntry.DEFLATED, zip.getEntry("p3/C48.class").getMethod());
+            Assert.assertEquals(1000000000L, zip.getEntry("p3/C48.class").getTime());
+            Assert.assertEquals("png", read(zip, "icon.png"));
+            Assert.assertTrue(read(zip, "p3/C48.class").endsWith("class 960"));
+        }
+    }
+
+    private File merge(File directory, int threads) throws Exception {
+        File target = File.createTempFile("merged", ".jar", folder.getRoot());
+        ZipMerger merger = new ZipMerger(new SystemStreamLog());
+        merger.setThreads(threads);
+        merger.setEntryTime(1000000000L);
+        merger.addDirectory(directory);
+        merger.write(target);
+        return target;
+    }
+
+    private File zip(String name, String... entries) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < entries.length; i += 2) {
+                out.putNextEntry(new ZipEntry(entries[i]));
+                out.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static List<String> names(ZipFile zip) {
+        List<String> names = new ArrayList<String>();
+        for (ZipEntry entry : Collections.list(zip.entries())) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    private static String read(ZipFile zip, String name) throws Exception {
+        byte[] bytes = new byte[(int) zip.getEntry(name).getSize()];
+        try (java.io.InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset += in.read(bytes, offset, bytes.length - offset);
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}